@@ -0,0 +1,262 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.graphics.Rect;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.timehop.stickyheadersrecyclerview.caching.HeaderProvider;
+import com.timehop.stickyheadersrecyclerview.caching.SectionIndex;
+import com.timehop.stickyheadersrecyclerview.calculation.DimensionCalculator;
+import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
+
+/**
+ * Calculates the position and location of footer views, the mirror of
+ * {@link HeaderPositionCalculator}: a footer is drawn after the last item of its section, and the
+ * footer of the section crossing the bottom (or right) of the list sticks to that edge until the
+ * footer of the section before it pushes it off.
+ * <p>
+ * Sections are looked up in the {@link SectionIndex} shared with the headers, and bounds are
+ * written into rects given by the caller, so nothing is allocated while drawing.
+ */
+public class FooterPositionCalculator {
+
+  private final StickyRecyclerHeadersAdapter mAdapter;
+  private final OrientationProvider mOrientationProvider;
+  private final HeaderProvider mFooterProvider;
+  private final DimensionCalculator mDimensionCalculator;
+  private final SectionIndex mSectionIndex;
+
+  private final Rect mItemMargins = new Rect();
+  private final Rect mFooterMargins = new Rect();
+  private final Rect mOtherFooterMargins = new Rect();
+
+  public FooterPositionCalculator(StickyRecyclerHeadersAdapter adapter, HeaderProvider footerProvider, OrientationProvider orientationProvider, DimensionCalculator dimensionCalculator, SectionIndex sectionIndex) {
+    mAdapter = adapter;
+    mFooterProvider = footerProvider;
+    mOrientationProvider = orientationProvider;
+    mDimensionCalculator = dimensionCalculator;
+    mSectionIndex = sectionIndex;
+  }
+
+  /**
+   * Determines if an item is followed by the footer of its section, that is if it is on the last row
+   * of the section. Items of sections without headers never have a footer.
+   *
+   * @param position of the list item in question
+   * @param isReverseLayout TRUE if layout manager has flag isReverseLayout
+   * @return true if the footer of the section is drawn after this item
+   */
+  public boolean hasNewFooter(int position, boolean isReverseLayout) {
+    if (indexOutOfBounds(position)) {
+      return false;
+    }
+
+    int columnOfItem = position % getNumColumns(position);
+    if (columnOfItem > 0) {
+      return hasNewFooter(position - columnOfItem, isReverseLayout);
+    }
+
+    mSectionIndex.ensureBuilt();
+    if (!mSectionIndex.isValid()) {
+      // The index is being built in the background
+      return hasNewFooterFromNeighbor(position, isReverseLayout);
+    }
+
+    int section = mSectionIndex.getSectionForPosition(position);
+
+    if (mSectionIndex.getSectionHeaderId(section) < 0) {
+      return false;
+    }
+
+    return position == getFooterPosition(section, isReverseLayout);
+  }
+
+  /**
+   * Determines if the row starting at an item ends its section by comparing its header id with the
+   * one of the item shown after the row, without the section index
+   */
+  private boolean hasNewFooterFromNeighbor(int position, boolean isReverseLayout) {
+    long headerId = mAdapter.getHeaderId(position);
+    if (headerId < 0) {
+      return false;
+    }
+
+    // In reverse layouts the row shown after this one is the one before it in the adapter
+    int nextItemPosition = isReverseLayout ? position - 1 : position + getNumColumns(position);
+    return indexOutOfBounds(nextItemPosition) || mAdapter.getHeaderId(nextItemPosition) != headerId;
+  }
+
+  /**
+   * @return position of the first item of the row the footer of the section is drawn after. In
+   * reverse layouts the first item of a section is the one shown last.
+   */
+  public int getFooterPosition(int section, boolean isReverseLayout) {
+    int lastItemPosition = isReverseLayout ? mSectionIndex.getSectionStart(section) : mSectionIndex.getSectionEnd(section);
+    return lastItemPosition - lastItemPosition % getNumColumns(lastItemPosition);
+  }
+
+  /**
+   * Determines if an item carries the sticky footer, that is if it crosses the bottom (or right) of
+   * the list and its section has a header
+   *
+   * @param itemView given by the RecyclerView
+   * @param orientation of the Recyclerview
+   * @param position of the list item in question
+   * @return True if the view should have a sticky footer
+   */
+  public boolean hasStickyFooter(RecyclerView recyclerView, View itemView, int orientation, int position) {
+    mDimensionCalculator.initMargins(mItemMargins, itemView);
+
+    boolean crossesEnd;
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      int listBottom = getListBottom(recyclerView);
+      crossesEnd = itemView.getTop() - mItemMargins.top < listBottom && itemView.getBottom() + mItemMargins.bottom >= listBottom;
+    } else {
+      int listRight = getListRight(recyclerView);
+      crossesEnd = itemView.getLeft() - mItemMargins.left < listRight && itemView.getRight() + mItemMargins.right >= listRight;
+    }
+
+    return crossesEnd && mAdapter.getHeaderId(position) >= 0;
+  }
+
+  /**
+   * @param footer to measure
+   * @return size of the footer with its margins, along the orientation of the list
+   */
+  public int getFooterSize(View footer, int orientation) {
+    mDimensionCalculator.initMargins(mFooterMargins, footer);
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      return footer.getHeight() + mFooterMargins.top + mFooterMargins.bottom;
+    } else {
+      return footer.getWidth() + mFooterMargins.left + mFooterMargins.right;
+    }
+  }
+
+  /**
+   * Calculates where the footer is drawn right after an item, when it does not stick
+   *
+   * @param bounds   filled with the bounds of the footer
+   * @param footer   to draw
+   * @param lastView item the footer is drawn after
+   */
+  public void getFooterBounds(Rect bounds, RecyclerView recyclerView, View footer, View lastView) {
+    int orientation = mOrientationProvider.getOrientation(recyclerView);
+    mDimensionCalculator.initMargins(mFooterMargins, footer);
+    int start = getUnstickyFooterStart(lastView, orientation, mFooterMargins);
+
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      int left = lastView.getLeft() - getLeftMargin(lastView) + mFooterMargins.left;
+      bounds.set(left, start, left + footer.getWidth(), start + footer.getHeight());
+    } else {
+      int top = lastView.getTop() - getTopMargin(lastView) + mFooterMargins.top;
+      bounds.set(start, top, start + footer.getWidth(), top + footer.getHeight());
+    }
+  }
+
+  /**
+   * Calculates where the sticky footer of a section is drawn: after its last item if that item is
+   * far enough from the end of the list, against the end of the list otherwise, pushed off by the
+   * footer of the section before it.
+   *
+   * @param bounds          filled with the bounds of the footer
+   * @param footer          the sticky footer
+   * @param section         of the sticky footer
+   * @param isReverseLayout TRUE if layout manager has flag isReverseLayout
+   */
+  public void getStickyFooterBounds(Rect bounds, RecyclerView recyclerView, View footer, View stickyView, int section, boolean isReverseLayout) {
+    int orientation = mOrientationProvider.getOrientation(recyclerView);
+    RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+    mDimensionCalculator.initMargins(mFooterMargins, footer);
+
+    int start;
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      start = getListBottom(recyclerView) - mFooterMargins.bottom - footer.getHeight();
+    } else {
+      start = getListRight(recyclerView) - mFooterMargins.right - footer.getWidth();
+    }
+
+    View lastView = layoutManager.findViewByPosition(getFooterPosition(section, isReverseLayout));
+    if (lastView != null) {
+      start = Math.min(start, getUnstickyFooterStart(lastView, orientation, mFooterMargins));
+    }
+
+    // The section shown before this one is the previous one, or the next one in reverse layouts
+    int otherSection = isReverseLayout ? section + 1 : section - 1;
+    if (otherSection >= 0 && otherSection < mSectionIndex.getSectionCount() && mSectionIndex.getSectionHeaderId(otherSection) >= 0) {
+      int otherFooterPosition = getFooterPosition(otherSection, isReverseLayout);
+      View otherLastView = layoutManager.findViewByPosition(otherFooterPosition);
+      if (otherLastView != null) {
+        View otherFooter = mFooterProvider.getHeader(recyclerView, otherFooterPosition);
+        mDimensionCalculator.initMargins(mOtherFooterMargins, otherFooter);
+        int otherStart = getUnstickyFooterStart(otherLastView, orientation, mOtherFooterMargins);
+
+        if (orientation == LinearLayoutManager.VERTICAL) {
+          start = Math.max(start, otherStart + otherFooter.getHeight() + mOtherFooterMargins.bottom + mFooterMargins.top);
+        } else {
+          start = Math.max(start, otherStart + otherFooter.getWidth() + mOtherFooterMargins.right + mFooterMargins.left);
+        }
+      }
+    }
+
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      int left = stickyView.getLeft() - getLeftMargin(stickyView) + mFooterMargins.left;
+      bounds.set(left, start, left + footer.getWidth(), start + footer.getHeight());
+    } else {
+      int top = stickyView.getTop() - getTopMargin(stickyView) + mFooterMargins.top;
+      bounds.set(start, top, start + footer.getWidth(), top + footer.getHeight());
+    }
+  }
+
+  /**
+   * @return where the footer starts when it does not stick, right after the item
+   */
+  private int getUnstickyFooterStart(View lastView, int orientation, Rect footerMargins) {
+    ViewGroup.LayoutParams layoutParams = lastView.getLayoutParams();
+    ViewGroup.MarginLayoutParams marginLayoutParams = layoutParams instanceof ViewGroup.MarginLayoutParams ? (ViewGroup.MarginLayoutParams) layoutParams : null;
+
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      int bottomMargin = marginLayoutParams != null ? marginLayoutParams.bottomMargin : 0;
+      return lastView.getBottom() + bottomMargin + footerMargins.top;
+    } else {
+      int rightMargin = marginLayoutParams != null ? marginLayoutParams.rightMargin : 0;
+      return lastView.getRight() + rightMargin + footerMargins.left;
+    }
+  }
+
+  private int getNumColumns(int position) {
+    return mAdapter.getNumColumns() - mAdapter.getSpanSize(position) + 1;
+  }
+
+  private static int getLeftMargin(View view) {
+    ViewGroup.LayoutParams layoutParams = view.getLayoutParams();
+    return layoutParams instanceof ViewGroup.MarginLayoutParams ? ((ViewGroup.MarginLayoutParams) layoutParams).leftMargin : 0;
+  }
+
+  private static int getTopMargin(View view) {
+    ViewGroup.LayoutParams layoutParams = view.getLayoutParams();
+    return layoutParams instanceof ViewGroup.MarginLayoutParams ? ((ViewGroup.MarginLayoutParams) layoutParams).topMargin : 0;
+  }
+
+  private boolean indexOutOfBounds(int position) {
+    return position < 0 || position >= mAdapter.getItemCount();
+  }
+
+  private int getListBottom(RecyclerView view) {
+    if (view.getLayoutManager().getClipToPadding()) {
+      return view.getHeight() - view.getPaddingBottom();
+    } else {
+      return view.getHeight();
+    }
+  }
+
+  private int getListRight(RecyclerView view) {
+    if (view.getLayoutManager().getClipToPadding()) {
+      return view.getWidth() - view.getPaddingRight();
+    } else {
+      return view.getWidth();
+    }
+  }
+}
@@ -8,7 +8,13 @@ import android.view.ViewGroup;
 import android.widget.LinearLayout;
 
 import com.timehop.stickyheadersrecyclerview.caching.HeaderProvider;
+import com.timehop.stickyheadersrecyclerview.caching.SectionIndex;
 import com.timehop.stickyheadersrecyclerview.calculation.DimensionCalculator;
+import com.timehop.stickyheadersrecyclerview.rendering.HeaderTransform;
+import com.timehop.stickyheadersrecyclerview.rendering.StickyHeaderStrategy;
+import com.timehop.stickyheadersrecyclerview.util.LayoutInfo;
+import com.timehop.stickyheadersrecyclerview.util.LayoutInfoProvider;
+import com.timehop.stickyheadersrecyclerview.util.LayoutManagerOrientationProvider;
 import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
 
 /**
@@ -18,14 +24,32 @@ public class HeaderPositionCalculator {
 
   private final StickyRecyclerHeadersAdapter mAdapter;
   private final OrientationProvider mOrientationProvider;
+  private final LayoutInfoProvider mLayoutInfoProvider;
   private final HeaderProvider mHeaderProvider;
   private final DimensionCalculator mDimensionCalculator;
+  private final SectionIndex mSectionIndex;
+  private boolean mFindNextHeaderWithIndex;
 
   public HeaderPositionCalculator(StickyRecyclerHeadersAdapter adapter, HeaderProvider headerProvider, OrientationProvider orientationProvider, DimensionCalculator dimensionCalculator) {
+    this(adapter, headerProvider, orientationProvider, dimensionCalculator, new SectionIndex(adapter));
+  }
+
+  public HeaderPositionCalculator(StickyRecyclerHeadersAdapter adapter, HeaderProvider headerProvider, OrientationProvider orientationProvider, DimensionCalculator dimensionCalculator, SectionIndex sectionIndex) {
     mAdapter = adapter;
     mHeaderProvider = headerProvider;
     mOrientationProvider = orientationProvider;
+    mLayoutInfoProvider = LayoutManagerOrientationProvider.asLayoutInfoProvider(orientationProvider);
     mDimensionCalculator = dimensionCalculator;
+    mSectionIndex = sectionIndex;
+  }
+
+  /**
+   * Sets whether the header pushing the sticky header off is found with the section index, as it
+   * always is in reverse layouts, instead of by looking for the first child not under the sticky
+   * header.
+   */
+  public void setFindNextHeaderWithIndex(boolean findNextHeaderWithIndex) {
+    mFindNextHeaderWithIndex = findNextHeaderWithIndex;
   }
 
   /**
@@ -81,6 +105,29 @@ public class HeaderPositionCalculator {
       return hasNewHeader(firstItemOnRowPosition, isReverseLayout);
     }
 
+    mSectionIndex.ensureBuilt();
+    if (!mSectionIndex.isValid()) {
+      // The index is being built in the background
+      return hasNewHeaderFromNeighbor(position, isReverseLayout);
+    }
+
+    int section = mSectionIndex.getSectionForPosition(position);
+
+    if (mSectionIndex.getSectionHeaderId(section) < 0) {
+      return false;
+    }
+
+    // In reverse layouts the last item of a section is the one shown first
+    int firstItemPosition = isReverseLayout? mSectionIndex.getSectionEnd(section) : mSectionIndex.getSectionStart(section);
+
+    return position == firstItemPosition;
+  }
+
+  /**
+   * Determines if an item has a new header by comparing its header id with the one of the item shown
+   * before it, without the section index
+   */
+  private boolean hasNewHeaderFromNeighbor(int position, boolean isReverseLayout) {
     long headerId = mAdapter.getHeaderId(position);
 
     if (headerId < 0) {
@@ -98,6 +145,11 @@ public class HeaderPositionCalculator {
     return position == firstItemPosition || headerId != nextItemHeaderId;
   }
 
+  private boolean isSectionIndexReady() {
+    mSectionIndex.ensureBuilt();
+    return mSectionIndex.isValid();
+  }
+
   private boolean indexOutOfBounds(int position) {
     return position < 0 || position >= mAdapter.getItemCount();
   }
@@ -109,10 +161,26 @@ public class HeaderPositionCalculator {
    * @return first item that is fully beneath a header
    */
   public boolean headerObscuringSomeItem(RecyclerView parent, View firstHeader) {
-    for (int i = 0; i < parent.getChildCount(); i++) {
-      View child = parent.getChildAt(i);
+    LayoutInfo layoutInfo = mLayoutInfoProvider.getLayoutInfo(parent);
+    int startPosition = layoutInfo.findStartAnchorPosition();
+    int endPosition = layoutInfo.findEndAnchorPosition();
+    if (startPosition == RecyclerView.NO_POSITION || endPosition == RecyclerView.NO_POSITION) {
+      return false;
+    }
+
+    // Items are looked up by position, children are not attached in position order in every layout
+    int firstPosition = Math.min(startPosition, endPosition);
+    int lastPosition = Math.min(Math.max(startPosition, endPosition), mAdapter.getItemCount() - 1);
+    long headerId = findHeaderId(parent, firstHeader, startPosition, firstPosition, lastPosition);
+    if (headerId < 0) {
+      return false;
+    }
 
-      if (itemIsObscuredByHeader(parent, child, firstHeader, mOrientationProvider.getOrientation(parent))) {
+    RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+    int orientation = mOrientationProvider.getOrientation(parent);
+    for (int position = firstPosition; position <= lastPosition; position++) {
+      View child = layoutManager.findViewByPosition(position);
+      if (child != null && itemIsObscuredByHeader(parent, child, firstHeader, headerId, orientation)) {
           return true;
       }
     }
@@ -121,20 +189,158 @@ public class HeaderPositionCalculator {
   }
 
   public Rect getHeaderBounds(RecyclerView recyclerView, View header, View firstView, boolean firstHeader, boolean enableStickyHeader) {
+    return getHeaderBounds(recyclerView, header, firstView, firstHeader, enableStickyHeader, null, null);
+  }
+
+  /**
+   * Calculates where a header is drawn. The sticky header is transformed by a strategy, which gets
+   * how far its section scrolled under it and how far the next header pushes it.
+   *
+   * @param strategy  to transform the sticky header with, or null to push it off with the next header
+   * @param transform filled with the transform of the header, which is translated in the returned
+   *                  bounds and has to be applied by the renderer otherwise. May be null if the
+   *                  strategy is null.
+   * @return bounds of the header, translated by the transform
+   */
+  public Rect getHeaderBounds(RecyclerView recyclerView, View header, View firstView, boolean firstHeader, boolean enableStickyHeader,
+    StickyHeaderStrategy strategy, HeaderTransform transform) {
+    return getHeaderBounds(recyclerView, header, firstView, firstHeader, enableStickyHeader, strategy, transform, true);
+  }
+
+  /**
+   * Calculates where a header is drawn, optionally leaving out the push of the sticky header by the
+   * next one, for frames that do not draw the next header.
+   *
+   * @param pushedByNextHeader false to keep the sticky header in place as the next header reaches it
+   */
+  public Rect getHeaderBounds(RecyclerView recyclerView, View header, View firstView, boolean firstHeader, boolean enableStickyHeader,
+    StickyHeaderStrategy strategy, HeaderTransform transform, boolean pushedByNextHeader) {
+
     int orientation = mOrientationProvider.getOrientation(recyclerView);
 
     Rect bounds = getDefaultHeaderOffset(recyclerView, header, firstView, orientation, enableStickyHeader);
 
-    if (enableStickyHeader && firstHeader && isStickyHeaderBeingPushedOffscreen(recyclerView, header)) {
-      View viewAfterNextHeader = getFirstViewUnobscuredByHeader(recyclerView, header);
-      int firstViewUnderHeaderPosition = recyclerView.getChildAdapterPosition(viewAfterNextHeader);
-      View secondHeader = mHeaderProvider.getHeader(recyclerView, firstViewUnderHeaderPosition);
-      translateHeaderWithNextHeader(recyclerView, mOrientationProvider.getOrientation(recyclerView), bounds, header, viewAfterNextHeader, secondHeader);
+    if (transform != null) {
+      transform.reset();
+    }
+
+    if (enableStickyHeader && firstHeader) {
+      int pushShift = 0;
+      boolean reverseLayout = mOrientationProvider.isReverseLayout(recyclerView);
+      if (!pushedByNextHeader) {
+        pushShift = 0;
+      } else if (reverseLayout || (mFindNextHeaderWithIndex && isSectionIndexReady())) {
+        pushShift = getIndexedStickyHeaderShift(recyclerView, orientation, header, firstView, reverseLayout);
+      } else if (isStickyHeaderBeingPushedOffscreen(recyclerView, header, firstView)) {
+        View viewAfterNextHeader = getFirstViewUnobscuredByHeader(recyclerView, header, getHeaderIdOfChild(recyclerView, firstView));
+        int firstViewUnderHeaderPosition = recyclerView.getChildAdapterPosition(viewAfterNextHeader);
+        View secondHeader = mHeaderProvider.getHeader(recyclerView, firstViewUnderHeaderPosition);
+        pushShift = getShiftFromNextHeader(recyclerView, orientation, header, viewAfterNextHeader, secondHeader);
+      }
+
+      int translation = pushShift;
+      if (strategy != null && header != null && firstView != null) {
+        Rect headerMargins = mDimensionCalculator.getMargins(header);
+        int headerSize;
+        int scrolledDistance;
+        if (orientation == LinearLayoutManager.VERTICAL) {
+          headerSize = header.getHeight() + headerMargins.top + headerMargins.bottom;
+          scrolledDistance = bounds.top - getUnstickyHeaderStart(header, firstView, orientation);
+        } else {
+          headerSize = header.getWidth() + headerMargins.left + headerMargins.right;
+          scrolledDistance = bounds.left - getUnstickyHeaderStart(header, firstView, orientation);
+        }
+
+        strategy.computeTransform(transform, headerSize, Math.max(0, scrolledDistance), pushShift);
+        translation = transform.getTranslation();
+      }
+
+      if (orientation == LinearLayoutManager.VERTICAL) {
+        bounds.offset(0, translation);
+      } else {
+        bounds.offset(translation, 0);
+      }
     }
 
     return bounds;
   }
 
+  /**
+   * Determines if a sticky header is pinned, that is if it would start before the top (or left) of
+   * the list when drawn right before the item
+   *
+   * @param header    to check
+   * @param firstView item the header is drawn for
+   * @return true if the header is pinned
+   */
+  public boolean isHeaderPinned(RecyclerView recyclerView, View header, View firstView) {
+    int orientation = mOrientationProvider.getOrientation(recyclerView);
+    Rect headerMargins = mDimensionCalculator.getMargins(header);
+    int headerStart = getUnstickyHeaderStart(header, firstView, orientation);
+
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      return headerStart < getListTop(recyclerView) + headerMargins.top;
+    } else {
+      return headerStart < getListLeft(recyclerView) + headerMargins.left;
+    }
+  }
+
+  /**
+   * Finds how far the sticky header is pushed off by the header of the section below it. The
+   * section below is found with the section index, and so is its first visible item, which is the
+   * last item of that section in reverse layouts, so no attached child has to be scanned.
+   *
+   * @param stickyView the item carrying the sticky header
+   * @return the shift of the sticky header, 0 if it is not pushed
+   */
+  private int getIndexedStickyHeaderShift(RecyclerView recyclerView, int orientation, View stickyHeader, View stickyView, boolean reverseLayout) {
+    int stickyPosition = recyclerView.getChildAdapterPosition(stickyView);
+    if (stickyPosition == RecyclerView.NO_POSITION || indexOutOfBounds(stickyPosition)) {
+      return 0;
+    }
+
+    // The sticky header is not pushed until the index built in the background is published
+    mSectionIndex.ensureBuilt();
+    if (!mSectionIndex.isValid()) {
+      return 0;
+    }
+
+    int section = mSectionIndex.getSectionForPosition(stickyPosition);
+    int nextSection = reverseLayout ? section - 1 : section + 1;
+    if (nextSection < 0 || nextSection >= mSectionIndex.getSectionCount() || mSectionIndex.getSectionHeaderId(nextSection) < 0) {
+      return 0;
+    }
+
+    int nextHeaderPosition = reverseLayout ? mSectionIndex.getSectionEnd(nextSection) : mSectionIndex.getSectionStart(nextSection);
+    View viewAfterNextHeader = recyclerView.getLayoutManager().findViewByPosition(nextHeaderPosition);
+    if (viewAfterNextHeader == null) {
+      return 0;
+    }
+
+    View nextHeader = mHeaderProvider.getHeader(recyclerView, nextHeaderPosition);
+    if (isHeaderPushedByNextHeader(recyclerView, orientation, stickyHeader, viewAfterNextHeader, nextHeader)) {
+      return getShiftFromNextHeader(recyclerView, orientation, stickyHeader, viewAfterNextHeader, nextHeader);
+    }
+    return 0;
+  }
+
+  /**
+   * @return where the header starts when it does not stick, right before the item
+   */
+  private int getUnstickyHeaderStart(View header, View firstView, int orientation) {
+    Rect headerMargins = mDimensionCalculator.getMargins(header);
+    ViewGroup.LayoutParams layoutParams = firstView.getLayoutParams();
+    ViewGroup.MarginLayoutParams marginLayoutParams = layoutParams instanceof ViewGroup.MarginLayoutParams ? (ViewGroup.MarginLayoutParams) layoutParams : null;
+
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      int topMargin = marginLayoutParams != null ? marginLayoutParams.topMargin : 0;
+      return firstView.getTop() - topMargin - header.getHeight() - headerMargins.bottom;
+    } else {
+      int leftMargin = marginLayoutParams != null ? marginLayoutParams.leftMargin : 0;
+      return firstView.getLeft() - leftMargin - header.getWidth() - headerMargins.right;
+    }
+  }
+
   private Rect getDefaultHeaderOffset(RecyclerView recyclerView, View header, View firstView, int orientation, boolean enableStickyHeader) {
     int translationX, translationY;
 
@@ -168,9 +374,9 @@ public class HeaderPositionCalculator {
     }
   }
 
-  private boolean isStickyHeaderBeingPushedOffscreen(RecyclerView recyclerView, View stickyHeader) {
+  private boolean isStickyHeaderBeingPushedOffscreen(RecyclerView recyclerView, View stickyHeader, View stickyView) {
     if (stickyHeader != null) {
-      View viewAfterHeader = getFirstViewUnobscuredByHeader(recyclerView, stickyHeader);
+      View viewAfterHeader = getFirstViewUnobscuredByHeader(recyclerView, stickyHeader, getHeaderIdOfChild(recyclerView, stickyView));
       int firstViewUnderHeaderPosition = recyclerView.getChildAdapterPosition(viewAfterHeader);
       if (firstViewUnderHeaderPosition == RecyclerView.NO_POSITION) {
         return false;
@@ -179,31 +385,29 @@ public class HeaderPositionCalculator {
       boolean isReverseLayout = mOrientationProvider.isReverseLayout(recyclerView);
       if (firstViewUnderHeaderPosition > 0 && hasNewHeader(firstViewUnderHeaderPosition, isReverseLayout)) {
         View nextHeader = mHeaderProvider.getHeader(recyclerView, firstViewUnderHeaderPosition);
-        Rect nextHeaderMargins = mDimensionCalculator.getMargins(nextHeader);
-        Rect headerMargins = mDimensionCalculator.getMargins(stickyHeader);
-
-        if (mOrientationProvider.getOrientation(recyclerView) == LinearLayoutManager.VERTICAL) {
-          int topOfNextHeader = viewAfterHeader.getTop() - nextHeaderMargins.bottom - nextHeader.getHeight() - nextHeaderMargins.top;
-          int bottomOfThisHeader = recyclerView.getPaddingTop() + stickyHeader.getBottom() + headerMargins.top + headerMargins.bottom;
-          if (topOfNextHeader < bottomOfThisHeader) {
-            return true;
-          }
-        } else {
-          int leftOfNextHeader = viewAfterHeader.getLeft() - nextHeaderMargins.right - nextHeader.getWidth() - nextHeaderMargins.left;
-          int rightOfThisHeader = recyclerView.getPaddingLeft() + stickyHeader.getRight() + headerMargins.left + headerMargins.right;
-          if (leftOfNextHeader < rightOfThisHeader) {
-            return true;
-          }
-        }
+        return isHeaderPushedByNextHeader(recyclerView, mOrientationProvider.getOrientation(recyclerView), stickyHeader, viewAfterHeader, nextHeader);
       }
     }
 
     return false;
   }
 
-  private void translateHeaderWithNextHeader(RecyclerView recyclerView, int orientation, Rect translation,
-    View currentHeader, View viewAfterNextHeader, View nextHeader) {
+  private boolean isHeaderPushedByNextHeader(RecyclerView recyclerView, int orientation, View stickyHeader, View viewAfterHeader, View nextHeader) {
+    Rect nextHeaderMargins = mDimensionCalculator.getMargins(nextHeader);
+    Rect headerMargins = mDimensionCalculator.getMargins(stickyHeader);
+
+    if (orientation == LinearLayoutManager.VERTICAL) {
+      int topOfNextHeader = viewAfterHeader.getTop() - nextHeaderMargins.bottom - nextHeader.getHeight() - nextHeaderMargins.top;
+      int bottomOfThisHeader = recyclerView.getPaddingTop() + stickyHeader.getBottom() + headerMargins.top + headerMargins.bottom;
+      return topOfNextHeader < bottomOfThisHeader;
+    } else {
+      int leftOfNextHeader = viewAfterHeader.getLeft() - nextHeaderMargins.right - nextHeader.getWidth() - nextHeaderMargins.left;
+      int rightOfThisHeader = recyclerView.getPaddingLeft() + stickyHeader.getRight() + headerMargins.left + headerMargins.right;
+      return leftOfNextHeader < rightOfThisHeader;
+    }
+  }
 
+  private int getShiftFromNextHeader(RecyclerView recyclerView, int orientation, View currentHeader, View viewAfterNextHeader, View nextHeader) {
     Rect nextHeaderMargins = mDimensionCalculator.getMargins(nextHeader);
     Rect stickyHeaderMargins = mDimensionCalculator.getMargins(currentHeader);
 
@@ -211,30 +415,48 @@ public class HeaderPositionCalculator {
       int topOfStickyHeader = getListTop(recyclerView) + stickyHeaderMargins.top + stickyHeaderMargins.bottom;
       int shiftFromNextHeader = viewAfterNextHeader.getTop() - nextHeader.getHeight() - nextHeaderMargins.bottom - nextHeaderMargins.top - currentHeader.getHeight() - topOfStickyHeader;
       if (shiftFromNextHeader < topOfStickyHeader) {
-        translation.top += shiftFromNextHeader;
+        return shiftFromNextHeader;
       }
     } else {
       int leftOfStickyHeader = getListLeft(recyclerView) + stickyHeaderMargins.left + stickyHeaderMargins.right;
       int shiftFromNextHeader = viewAfterNextHeader.getLeft() - nextHeader.getWidth() - nextHeaderMargins.right - nextHeaderMargins.left - currentHeader.getWidth() - leftOfStickyHeader;
       if (shiftFromNextHeader < leftOfStickyHeader) {
-        translation.left += shiftFromNextHeader;
+        return shiftFromNextHeader;
       }
     }
+    return 0;
   }
 
   /**
    * Returns the first item currently in the RecyclerView that is not obscured by a header.
+   * Not used for reverse layouts, see {@link #getIndexedStickyHeaderShift}.
    *
    * @param parent Recyclerview containing all the list items
    * @return first item that is fully beneath a header
    */
-  private View getFirstViewUnobscuredByHeader(RecyclerView parent, View firstHeader) {
-    boolean isReverseLayout = mOrientationProvider.isReverseLayout(parent);
-    int step = isReverseLayout? -1 : 1;
-    int from = isReverseLayout? parent.getChildCount()-1 : 0;
-    for (int i = from; i >= 0 && i <= parent.getChildCount() - 1; i += step) {
-      View child = parent.getChildAt(i);
-      if (!itemIsObscuredByHeader(parent, child, firstHeader, mOrientationProvider.getOrientation(parent))) {
+  private View getFirstViewUnobscuredByHeader(RecyclerView parent, View firstHeader, long headerId) {
+    LayoutInfo layoutInfo = mLayoutInfoProvider.getLayoutInfo(parent);
+    int startPosition = layoutInfo.findStartAnchorPosition();
+    int endPosition = layoutInfo.findEndAnchorPosition();
+    if (startPosition == RecyclerView.NO_POSITION || endPosition == RecyclerView.NO_POSITION) {
+      return null;
+    }
+
+    // Items are looked up by position from the top of the list, children are not attached in
+    // position order in every layout
+    int firstPosition = Math.min(startPosition, endPosition);
+    int lastPosition = Math.min(Math.max(startPosition, endPosition), mAdapter.getItemCount() - 1);
+    if (isSectionIndexReady() && lastPosition < mSectionIndex.getItemCount()) {
+      // Only items of the section under the header are obscured, the next section ends the search
+      int section = mSectionIndex.getSectionForPosition(firstPosition);
+      lastPosition = Math.min(lastPosition, mSectionIndex.getSectionEnd(section) + 1);
+    }
+
+    RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+    int orientation = mOrientationProvider.getOrientation(parent);
+    for (int position = firstPosition; position <= lastPosition; position++) {
+      View child = layoutManager.findViewByPosition(position);
+      if (child != null && !itemIsObscuredByHeader(parent, child, firstHeader, headerId, orientation)) {
         return child;
       }
     }
@@ -244,19 +466,19 @@ public class HeaderPositionCalculator {
   /**
    * Determines if an item is obscured by a header
    *
-   *
    * @param parent
    * @param item        to determine if obscured by header
    * @param header      that might be obscuring the item
+   * @param headerId    id of the header, which may be a pinned variant
    * @param orientation of the {@link RecyclerView}
    * @return true if the item view is obscured by the header view
    */
-  private boolean itemIsObscuredByHeader(RecyclerView parent, View item, View header, int orientation) {
+  private boolean itemIsObscuredByHeader(RecyclerView parent, View item, View header, long headerId, int orientation) {
     RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) item.getLayoutParams();
     Rect rect = mDimensionCalculator.getMargins(header);
 
     int adapterPosition = parent.getChildAdapterPosition(item);
-    if (adapterPosition == RecyclerView.NO_POSITION || mHeaderProvider.getHeader(parent, adapterPosition) != header) {
+    if (adapterPosition == RecyclerView.NO_POSITION || headerId < 0 || mAdapter.getHeaderId(adapterPosition) != headerId) {
       // Resolves https://github.com/timehop/sticky-headers-recyclerview/issues/36
       // Handles an edge case where a trailing header is smaller than the current sticky header.
       return false;
@@ -279,6 +501,48 @@ public class HeaderPositionCalculator {
     return true;
   }
 
+  /**
+   * @return the header id of the section of a child, or -1 if it has no position
+   */
+  private long getHeaderIdOfChild(RecyclerView parent, View child) {
+    int position = child != null ? parent.getChildAdapterPosition(child) : RecyclerView.NO_POSITION;
+    return position != RecyclerView.NO_POSITION && !indexOutOfBounds(position) ? mAdapter.getHeaderId(position) : -1;
+  }
+
+  /**
+   * Finds the id of a header among the sections on screen, one lookup per section once the index
+   * is ready. The pinned variant of a header is only looked for in the section of the sticky item,
+   * which is the only one it is drawn for, so that pinned headers are not created for every
+   * section on screen.
+   *
+   * @param stickyPosition position of the item at the top (or left) of the list
+   * @return the id of the header, or -1 if it is not the header of any section on screen
+   */
+  private long findHeaderId(RecyclerView parent, View header, int stickyPosition, int firstPosition, int lastPosition) {
+    if (isSectionIndexReady() && lastPosition < mSectionIndex.getItemCount()) {
+      int lastSection = mSectionIndex.getSectionForPosition(lastPosition);
+      for (int section = mSectionIndex.getSectionForPosition(firstPosition); section <= lastSection; section++) {
+        long headerId = mSectionIndex.getSectionHeaderId(section);
+        int position = Math.max(firstPosition, mSectionIndex.getSectionStart(section));
+        if (headerId >= 0 && mHeaderProvider.getHeader(parent, position) == header) {
+          return headerId;
+        }
+      }
+    } else {
+      for (int position = firstPosition; position <= lastPosition; position++) {
+        if (mAdapter.getHeaderId(position) >= 0 && mHeaderProvider.getHeader(parent, position) == header) {
+          return mAdapter.getHeaderId(position);
+        }
+      }
+    }
+
+    if (!indexOutOfBounds(stickyPosition) && mAdapter.getHeaderId(stickyPosition) >= 0
+        && mHeaderProvider.getPinnedHeader(parent, stickyPosition) == header) {
+      return mAdapter.getHeaderId(stickyPosition);
+    }
+    return -1;
+  }
+
   private int getListTop(RecyclerView view) {
     if (view.getLayoutManager().getClipToPadding()) {
       return view.getPaddingTop();
@@ -11,7 +11,9 @@ package com.timehop.stickyheadersrecyclerview;
  * To use it you must pass an instance of a class that implements this
  * interface as a second argment StickyRecyclerLinearHeadersDecoration's constructor.
  *
+ * @deprecated the decoration skips the children laid out outside the list by itself
  */
+@Deprecated
 public interface ItemVisibilityAdapter {
 
     /**
@@ -0,0 +1,29 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+/**
+ * A {@link StickyRecyclerHeadersAdapter} that also has a footer after the last item of each section
+ * with a header, like a subtotal. The footer of the section at the bottom (or right) of the list
+ * sticks to that edge until the footer of the section before it pushes it off. Footers share the
+ * section index of the headers and are cached the same way.
+ */
+public interface StickyRecyclerFootersAdapter<VH extends RecyclerView.ViewHolder> extends StickyRecyclerHeadersAdapter<VH> {
+  /**
+   * Creates a new ViewHolder for a footer, see {@link #onCreateHeaderViewHolder(ViewGroup, int)}
+   *
+   * @param parent the view to create a footer view holder for
+   * @param position the position of an item of the section to create the view holder for.
+   * @return the view holder
+   */
+  VH onCreateFooterViewHolder(ViewGroup parent, int position);
+
+  /**
+   * Binds an existing footer ViewHolder to the specified adapter position.
+   *
+   * @param holder the view holder
+   * @param position the position of an item of the section
+   */
+  void onBindFooterViewHolder(VH holder, int position);
+}
@@ -0,0 +1,242 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.RecyclerViewAccessibilityDelegate;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+
+import com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration;
+import com.timehop.stickyheadersrecyclerview.util.HeaderTouchTargets;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exposes the headers drawn by a {@link StickyRecyclerHeadersDecoration} to accessibility services
+ * as virtual views of the RecyclerView, so they can be explored and clicked without being attached.
+ * Each header is a virtual view described by its content description or its text, followed by a
+ * virtual view for each of its clickable children.
+ * <p>
+ * The helper replaces the accessibility delegate of the RecyclerView and forwards everything about
+ * the RecyclerView itself to its original delegate. Hover events are received through an
+ * {@link View.OnHoverListener}, which only gets the events the items did not handle. A RecyclerView
+ * subclass can give the headers priority by calling {@link #dispatchHoverEvent(MotionEvent)} first
+ * from its own {@code dispatchHoverEvent}.
+ */
+public class StickyRecyclerHeadersAccessibilityHelper extends ExploreByTouchHelper {
+
+  /**
+   * Virtual view ids are {@code position * CHILD_IDS + child}, where child 0 is the header itself
+   */
+  private static final int CHILD_IDS = 64;
+
+  private final RecyclerView mRecyclerView;
+  private final StickyRecyclerHeadersAdapter mAdapter;
+  private final StickyRecyclerHeadersDecoration mDecor;
+  private final RecyclerViewAccessibilityDelegate mRecyclerViewDelegate;
+  private StickyRecyclerHeadersTouchListener.OnHeaderClickListener mOnHeaderClickListener;
+
+  private final List<View> mChildren = new ArrayList<>();
+  private final List<Rect> mChildBounds = new ArrayList<>();
+  private final Rect mBounds = new Rect();
+
+  public StickyRecyclerHeadersAccessibilityHelper(RecyclerView recyclerView, StickyRecyclerHeadersDecoration decor) {
+    this(recyclerView, (StickyRecyclerHeadersAdapter) recyclerView.getAdapter(), decor);
+  }
+
+  public StickyRecyclerHeadersAccessibilityHelper(RecyclerView recyclerView, StickyRecyclerHeadersAdapter adapter, StickyRecyclerHeadersDecoration decor) {
+    super(recyclerView);
+    mRecyclerView = recyclerView;
+    mAdapter = adapter;
+    mDecor = decor;
+    mRecyclerViewDelegate = recyclerView.getCompatAccessibilityDelegate();
+  }
+
+  /**
+   * Sets the accessibility delegate of the RecyclerView to this helper, and starts following the
+   * hover events and the scrolling of the RecyclerView
+   */
+  public void attach() {
+    ViewCompat.setAccessibilityDelegate(mRecyclerView, this);
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+      mRecyclerView.setOnHoverListener(new View.OnHoverListener() {
+        @Override
+        public boolean onHover(View v, MotionEvent event) {
+          return dispatchHoverEvent(event);
+        }
+      });
+    }
+
+    mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+      @Override
+      public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+          invalidateRoot();
+        }
+      }
+    });
+  }
+
+  /**
+   * @param listener called when an accessibility service clicks a header, the same listener as
+   *                 the one of the {@link StickyRecyclerHeadersTouchListener}
+   */
+  public void setOnHeaderClickListener(StickyRecyclerHeadersTouchListener.OnHeaderClickListener listener) {
+    mOnHeaderClickListener = listener;
+  }
+
+  @Override
+  public void onInitializeAccessibilityEvent(View host, AccessibilityEvent event) {
+    if (mRecyclerViewDelegate != null) {
+      mRecyclerViewDelegate.onInitializeAccessibilityEvent(host, event);
+    } else {
+      super.onInitializeAccessibilityEvent(host, event);
+    }
+  }
+
+  @Override
+  public boolean performAccessibilityAction(View host, int action, Bundle args) {
+    if (mRecyclerViewDelegate != null) {
+      return mRecyclerViewDelegate.performAccessibilityAction(host, action, args);
+    }
+    return super.performAccessibilityAction(host, action, args);
+  }
+
+  @Override
+  protected void onPopulateNodeForHost(AccessibilityNodeInfoCompat node) {
+    if (mRecyclerViewDelegate != null) {
+      mRecyclerViewDelegate.onInitializeAccessibilityNodeInfo(mRecyclerView, node);
+    }
+  }
+
+  @Override
+  protected int getVirtualViewAt(float x, float y) {
+    int position = mDecor.findHeaderPositionUnder((int) x, (int) y);
+    if (position == -1) {
+      return INVALID_ID;
+    }
+
+    Rect bounds = mDecor.getDrawnHeaderBounds(position);
+    View header = mDecor.getDrawnHeaderView(mRecyclerView, position);
+    View child = HeaderTouchTargets.findClickableChildUnder(header, x - bounds.left, y - bounds.top);
+    if (child != null) {
+      int count = HeaderTouchTargets.collectClickableChildren(header, mChildren, mChildBounds);
+      for (int i = 0; i < count && i + 1 < CHILD_IDS; i++) {
+        if (mChildren.get(i) == child) {
+          return position * CHILD_IDS + i + 1;
+        }
+      }
+    }
+
+    return position * CHILD_IDS;
+  }
+
+  @Override
+  protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+    for (int i = 0; i < mDecor.getDrawnHeaderCount(); i++) {
+      int position = mDecor.getDrawnHeaderPosition(i);
+      virtualViewIds.add(position * CHILD_IDS);
+
+      View header = mDecor.getDrawnHeaderView(mRecyclerView, position);
+      int count = Math.min(HeaderTouchTargets.collectClickableChildren(header, mChildren, mChildBounds), CHILD_IDS - 1);
+      for (int child = 1; child <= count; child++) {
+        virtualViewIds.add(position * CHILD_IDS + child);
+      }
+    }
+  }
+
+  @Override
+  protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+    View view = getVirtualView(virtualViewId);
+    CharSequence text = view != null ? HeaderTouchTargets.getAccessibilityText(view) : null;
+    // Events need some text, even for headers that have scrolled away
+    event.setContentDescription(text != null ? text : "");
+  }
+
+  @Override
+  protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+    int position = virtualViewId / CHILD_IDS;
+    int child = virtualViewId % CHILD_IDS;
+    View view = getVirtualView(virtualViewId);
+    Rect bounds = mDecor.getDrawnHeaderBounds(position);
+
+    if (view == null || bounds == null) {
+      // The header is gone, nodes still need some text and bounds
+      node.setContentDescription("");
+      mBounds.set(0, 0, 1, 1);
+      node.setBoundsInParent(mBounds);
+      return;
+    }
+
+    CharSequence text = HeaderTouchTargets.getAccessibilityText(view);
+    node.setContentDescription(text != null ? text : "");
+    node.setClassName(view.getClass().getName());
+
+    if (child == 0) {
+      mBounds.set(bounds);
+      // Headings are reported through the collection item info until setHeading, in API 28
+      node.setCollectionItemInfo(AccessibilityNodeInfoCompat.CollectionItemInfoCompat.obtain(position, 1, 0, 1, true));
+      if (mOnHeaderClickListener != null) {
+        node.setClickable(true);
+        node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+      }
+    } else {
+      mBounds.set(mChildBounds.get(child - 1));
+      mBounds.offset(bounds.left, bounds.top);
+      node.setClickable(true);
+      node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+    }
+    node.setBoundsInParent(mBounds);
+  }
+
+  @Override
+  protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+    if (action != AccessibilityNodeInfoCompat.ACTION_CLICK) {
+      return false;
+    }
+
+    int position = virtualViewId / CHILD_IDS;
+    View view = getVirtualView(virtualViewId);
+    if (view == null) {
+      return false;
+    }
+
+    if (virtualViewId % CHILD_IDS != 0) {
+      return view.performClick();
+    }
+
+    if (mOnHeaderClickListener != null) {
+      mOnHeaderClickListener.onHeaderClick(view, position, mAdapter.getHeaderId(position));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return the header or the clickable child of a header for a virtual view id, and the bounds of
+   * the clickable children of that header in {@link #mChildBounds}. Null if the header was not
+   * drawn in the last frame.
+   */
+  private View getVirtualView(int virtualViewId) {
+    int position = virtualViewId / CHILD_IDS;
+    int child = virtualViewId % CHILD_IDS;
+    if (mDecor.getDrawnHeaderBounds(position) == null) {
+      return null;
+    }
+
+    View header = mDecor.getDrawnHeaderView(mRecyclerView, position);
+    int count = HeaderTouchTargets.collectClickableChildren(header, mChildren, mChildBounds);
+    if (child == 0) {
+      return header;
+    }
+    return child <= count ? mChildren.get(child - 1) : null;
+  }
+}
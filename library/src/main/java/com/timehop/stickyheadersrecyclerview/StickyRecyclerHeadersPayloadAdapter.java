@@ -0,0 +1,22 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.List;
+
+/**
+ * A {@link StickyRecyclerHeadersAdapter} able to update its headers partially, the same way
+ * {@link RecyclerView.Adapter#onBindViewHolder(RecyclerView.ViewHolder, int, List)} updates items.
+ */
+public interface StickyRecyclerHeadersPayloadAdapter<VH extends RecyclerView.ViewHolder> extends StickyRecyclerHeadersAdapter<VH> {
+  /**
+   * Binds an existing ViewHolder to the specified adapter position, applying only the given
+   * payloads. Only called with a non empty list of payloads, a full bind goes through
+   * {@link #onBindHeaderViewHolder(RecyclerView.ViewHolder, int)}.
+   *
+   * @param holder the view holder
+   * @param position the adapter position
+   * @param payloads the payloads passed when the header was rebound, in order
+   */
+  void onBindHeaderViewHolder(VH holder, int position, List<Object> payloads);
+}
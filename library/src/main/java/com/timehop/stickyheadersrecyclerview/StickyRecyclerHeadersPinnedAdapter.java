@@ -0,0 +1,35 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+/**
+ * A {@link StickyRecyclerHeadersAdapter} with a second, usually more compact, header view drawn
+ * while the header is pinned to the top (or left) of the list. The regular header scrolls with its
+ * section until the pinned header fits above the first visible item, then the pinned header
+ * takes its place. Pinned headers are created, measured and cached like regular headers, so
+ * switching between the two costs nothing per frame.
+ * <p>
+ * Pinned headers go to a {@link com.timehop.stickyheadersrecyclerview.caching.HeaderViewPool}
+ * under the view type {@code -1 - viewType}, where {@code viewType} is the view type of the
+ * regular header.
+ */
+public interface StickyRecyclerHeadersPinnedAdapter<VH extends RecyclerView.ViewHolder> extends StickyRecyclerHeadersAdapter<VH> {
+  /**
+   * Creates a new ViewHolder for a pinned header, see
+   * {@link #onCreateHeaderViewHolder(ViewGroup, int)}
+   *
+   * @param parent the view to create a header view holder for
+   * @param position the position of the item to create the view holder for.
+   * @return the view holder
+   */
+  VH onCreatePinnedHeaderViewHolder(ViewGroup parent, int position);
+
+  /**
+   * Binds an existing pinned header ViewHolder to the specified adapter position.
+   *
+   * @param holder the view holder
+   * @param position the adapter position
+   */
+  void onBindPinnedHeaderViewHolder(VH holder, int position);
+}
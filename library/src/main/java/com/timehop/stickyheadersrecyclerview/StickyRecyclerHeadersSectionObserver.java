@@ -0,0 +1,187 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.timehop.stickyheadersrecyclerview.caching.SectionIndex;
+import com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration;
+import com.timehop.stickyheadersrecyclerview.util.LayoutInfo;
+import com.timehop.stickyheadersrecyclerview.util.LayoutInfoProvider;
+import com.timehop.stickyheadersrecyclerview.util.LayoutManagerOrientationProvider;
+
+/**
+ * Follows the scrolling of a RecyclerView and tells when the section at the top (or left) of the
+ * list, the one whose header is pinned, changes. Unlike
+ * {@link StickyRecyclerHeadersPositionChangeListener}, which is called for every header on every
+ * frame, the listener is only called when the section changes. Sections are looked up in the
+ * {@link SectionIndex} of the decoration, so no header id is queried while scrolling.
+ *
+ * <pre>
+ * recyclerView.addOnScrollListener(new StickyRecyclerHeadersSectionObserver(headersDecor, listener));
+ * </pre>
+ */
+public class StickyRecyclerHeadersSectionObserver extends RecyclerView.OnScrollListener {
+
+  public interface OnSectionChangedListener {
+    /**
+     * Called when the section at the top (or left) of the list changes
+     *
+     * @param headerId       id of the header of the section, &lt; 0 if it has no header
+     * @param firstPosition  position of the first item of the section
+     * @param lastPosition   position of the last item of the section
+     * @param scrollFraction how far the list is scrolled into the section, from 0 to 1
+     */
+    void onSectionChanged(long headerId, int firstPosition, int lastPosition, float scrollFraction);
+  }
+
+  private final SectionIndex mSectionIndex;
+  private final OnSectionChangedListener mListener;
+
+  private final LayoutInfoProvider mLayoutInfoProvider = new LayoutManagerOrientationProvider();
+  private boolean mHasSection;
+  private long mHeaderId;
+  private int mFirstPosition = RecyclerView.NO_POSITION;
+  private int mLastPosition = RecyclerView.NO_POSITION;
+  private float mScrollFraction;
+
+  /**
+   * Row (or column in horizontal grids) of each item of the section at the top of the list, for
+   * grids only
+   */
+  private int[] mRows = new int[0];
+  private int mRowsFirstPosition = RecyclerView.NO_POSITION;
+  private int mRowsLastPosition = RecyclerView.NO_POSITION;
+  private int mRowsSpanCount;
+  private int mRowCount;
+
+  public StickyRecyclerHeadersSectionObserver(StickyRecyclerHeadersDecoration decor, OnSectionChangedListener listener) {
+    this(decor.getSectionIndex(), listener);
+  }
+
+  public StickyRecyclerHeadersSectionObserver(SectionIndex sectionIndex, OnSectionChangedListener listener) {
+    mSectionIndex = sectionIndex;
+    mListener = listener;
+  }
+
+  @Override
+  public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+    // Also called with no scroll once a layout is done, which covers data set changes
+    update(recyclerView);
+  }
+
+  /**
+   * Looks up the section at the top of the list, and calls the listener if it changed. Called on
+   * every scroll and layout, but can be called to report the current section right away.
+   */
+  public void update(RecyclerView recyclerView) {
+    RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+    if (layoutManager == null) {
+      return;
+    }
+
+    LayoutInfo layoutInfo = mLayoutInfoProvider.getLayoutInfo(recyclerView);
+    boolean reverseLayout = layoutInfo.isReverseLayout();
+    int position = layoutInfo.findStartAnchorPosition();
+
+    mSectionIndex.ensureBuilt();
+    if (position == RecyclerView.NO_POSITION || position >= mSectionIndex.getItemCount()) {
+      return;
+    }
+
+    int section = mSectionIndex.getSectionForPosition(position);
+    int firstPosition = mSectionIndex.getSectionStart(section);
+    int lastPosition = mSectionIndex.getSectionEnd(section);
+
+    // Rows of the section above the top of the list, plus the hidden part of the top row
+    updateRows(layoutInfo, firstPosition, lastPosition);
+    int rowsScrolled = reverseLayout ? mRowCount - 1 - getRow(position) : getRow(position);
+    float scrollFraction = (rowsScrolled + getHiddenFraction(recyclerView, layoutManager.findViewByPosition(position))) / mRowCount;
+    mScrollFraction = Math.max(0f, Math.min(1f, scrollFraction));
+
+    long headerId = mSectionIndex.getSectionHeaderId(section);
+    if (!mHasSection || headerId != mHeaderId || firstPosition != mFirstPosition || lastPosition != mLastPosition) {
+      mHasSection = true;
+      mHeaderId = headerId;
+      mFirstPosition = firstPosition;
+      mLastPosition = lastPosition;
+      mListener.onSectionChanged(headerId, firstPosition, lastPosition, mScrollFraction);
+    }
+  }
+
+  /**
+   * @return id of the header of the section at the top of the list, as last reported
+   */
+  public long getHeaderId() {
+    return mHeaderId;
+  }
+
+  /**
+   * @return how far the list is scrolled into the section at the top of the list, from 0 to 1.
+   * Updated on every scroll, even when the section does not change.
+   */
+  public float getScrollFraction() {
+    return mScrollFraction;
+  }
+
+  /**
+   * Packs the items of the section in rows the way GridLayoutManager does, once per section
+   */
+  private void updateRows(LayoutInfo layoutInfo, int firstPosition, int lastPosition) {
+    int spanCount = Math.max(1, layoutInfo.getSpanCount());
+    if (firstPosition == mRowsFirstPosition && lastPosition == mRowsLastPosition && spanCount == mRowsSpanCount) {
+      return;
+    }
+
+    mRowsFirstPosition = firstPosition;
+    mRowsLastPosition = lastPosition;
+    mRowsSpanCount = spanCount;
+
+    int itemCount = lastPosition - firstPosition + 1;
+    if (spanCount == 1) {
+      mRowCount = itemCount;
+      return;
+    }
+
+    if (mRows.length < itemCount) {
+      mRows = new int[itemCount];
+    }
+    int row = 0;
+    int spanIndex = 0;
+    for (int i = 0; i < itemCount; i++) {
+      int spanSize = Math.min(layoutInfo.getSpanSize(firstPosition + i), spanCount);
+      if (spanIndex + spanSize > spanCount) {
+        row++;
+        spanIndex = 0;
+      }
+      mRows[i] = row;
+      spanIndex += spanSize;
+    }
+    mRowCount = row + 1;
+  }
+
+  private int getRow(int position) {
+    return mRowsSpanCount == 1 ? position - mRowsFirstPosition : mRows[position - mRowsFirstPosition];
+  }
+
+  /**
+   * @return part of the item hidden past the top (or left) of the list, from 0 to 1
+   */
+  private static float getHiddenFraction(RecyclerView recyclerView, View item) {
+    if (item == null) {
+      return 0f;
+    }
+
+    RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+    int hidden;
+    int size;
+    if (layoutManager.canScrollVertically()) {
+      hidden = recyclerView.getPaddingTop() - layoutManager.getDecoratedTop(item);
+      size = layoutManager.getDecoratedBottom(item) - layoutManager.getDecoratedTop(item);
+    } else {
+      hidden = recyclerView.getPaddingLeft() - layoutManager.getDecoratedLeft(item);
+      size = layoutManager.getDecoratedRight(item) - layoutManager.getDecoratedLeft(item);
+    }
+
+    return size > 0 ? Math.max(0f, Math.min(1f, (float) hidden / size)) : 0f;
+  }
+}
@@ -0,0 +1,21 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * A {@link StickyRecyclerHeadersAdapter} that can hand over the header ids of all its items at
+ * once, so that the {@link com.timehop.stickyheadersrecyclerview.caching.SectionIndex} can be built
+ * on a background thread instead of calling {@link #getHeaderId(int)} for every position on the UI
+ * thread. See
+ * {@link com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration#setSectionIndexExecutor}.
+ */
+public interface StickyRecyclerHeadersSnapshotAdapter<VH extends RecyclerView.ViewHolder> extends StickyRecyclerHeadersAdapter<VH> {
+  /**
+   * Called on the UI thread. The array is read on background threads afterwards, so it must not be
+   * changed once returned: keep it alongside the data of the adapter and replace it when the data
+   * changes, rather than computing it here.
+   *
+   * @return the header id of every position of the adapter, {@link #getItemCount()} of them
+   */
+  long[] getHeaderIdSnapshot();
+}
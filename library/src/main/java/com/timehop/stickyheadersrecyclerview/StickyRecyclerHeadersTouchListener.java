@@ -1,25 +1,109 @@
 package com.timehop.stickyheadersrecyclerview;
 
+import android.graphics.Rect;
 import android.support.v7.widget.RecyclerView;
 import android.view.GestureDetector;
+import android.view.HapticFeedbackConstants;
 import android.view.MotionEvent;
 import android.view.SoundEffectConstants;
 import android.view.View;
 
 import com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration;
+import com.timehop.stickyheadersrecyclerview.util.HeaderTouchTargets;
 
+/**
+ * Handles touches on the headers drawn by a {@link StickyRecyclerHeadersDecoration}. Taps on a
+ * clickable child of a header, like a button, click that child. Other taps on a header are
+ * reported to the {@link OnHeaderClickListener}, and long presses, double taps and swipes to the
+ * {@link OnHeaderGestureListener}. While a header is touched, the touch events are dispatched to it
+ * in its own coordinates, so its children show their pressed state.
+ * <p>
+ * Only gestures starting on a header are followed: the header under a down event is looked up in
+ * the bounds of the drawn headers first, and the gesture detector never sees other gestures, like
+ * the ones scrolling the list.
+ */
 public class StickyRecyclerHeadersTouchListener implements RecyclerView.OnItemTouchListener {
 
-  private final GestureDetector mTapDetector;
+  private final GestureDetector mGestureDetector;
   private final RecyclerView mRecyclerView;
   private final StickyRecyclerHeadersAdapter mAdapter;
   private final StickyRecyclerHeadersDecoration mDecor;
   private OnHeaderClickListener mOnHeaderClickListener;
+  private OnHeaderGestureListener mOnHeaderGestureListener;
+
+  private View mTouchedHeader;
+  private int mTouchedPosition = -1;
+  private final Rect mTouchedHeaderBounds = new Rect();
+
+  /**
+   * Header of a tap waiting to be confirmed as a single tap, when double taps are listened to
+   */
+  private View mTappedHeader;
+  private int mTappedPosition = -1;
+  private float mTappedX;
+  private float mTappedY;
 
   public interface OnHeaderClickListener {
     void onHeaderClick(View header, int position, long headerId);
   }
 
+  /**
+   * Listens to gestures on headers, see {@link SimpleOnHeaderGestureListener} to only implement
+   * some of them
+   */
+  public interface OnHeaderGestureListener {
+    /**
+     * Called when a header is pressed long, unless the press is on a long clickable child
+     */
+    void onHeaderLongPress(View header, int position, long headerId);
+
+    /**
+     * Called on the second tap of a double tap on a header. While double taps are listened to,
+     * single taps are only reported once they can't be a double tap anymore.
+     *
+     * @return true to listen to double taps
+     */
+    boolean onHeaderDoubleTap(View header, int position, long headerId);
+
+    /**
+     * Called when a header is flung
+     *
+     * @param velocityX velocity of the swipe, in pixels per second
+     * @param velocityY velocity of the swipe, in pixels per second
+     */
+    void onHeaderSwipe(View header, int position, long headerId, float velocityX, float velocityY);
+
+    /**
+     * @return true if {@link #onHeaderDoubleTap} should be called, which delays single taps
+     */
+    boolean isDoubleTapEnabled();
+  }
+
+  /**
+   * An {@link OnHeaderGestureListener} that ignores all gestures and does not listen to double taps
+   */
+  public static class SimpleOnHeaderGestureListener implements OnHeaderGestureListener {
+    @Override
+    public void onHeaderLongPress(View header, int position, long headerId) {
+      // do nothing
+    }
+
+    @Override
+    public boolean onHeaderDoubleTap(View header, int position, long headerId) {
+      return false;
+    }
+
+    @Override
+    public void onHeaderSwipe(View header, int position, long headerId, float velocityX, float velocityY) {
+      // do nothing
+    }
+
+    @Override
+    public boolean isDoubleTapEnabled() {
+      return false;
+    }
+  }
+
   public StickyRecyclerHeadersTouchListener(final RecyclerView recyclerView,
                                             final StickyRecyclerHeadersDecoration decor) {
     this(recyclerView, (StickyRecyclerHeadersAdapter) recyclerView.getAdapter(), decor);
@@ -28,7 +112,8 @@ public class StickyRecyclerHeadersTouchListener implements RecyclerView.OnItemTo
   public StickyRecyclerHeadersTouchListener(final RecyclerView recyclerView,
                                             final StickyRecyclerHeadersAdapter adapter,
                                             final StickyRecyclerHeadersDecoration decor) {
-    mTapDetector = new GestureDetector(recyclerView.getContext(), new SingleTapDetector());
+    mGestureDetector = new GestureDetector(recyclerView.getContext(), new HeaderGestureDetector());
+    mGestureDetector.setIsLongpressEnabled(false);
     mRecyclerView = recyclerView;
     mAdapter = adapter;
     mDecor = decor;
@@ -42,46 +127,189 @@ public class StickyRecyclerHeadersTouchListener implements RecyclerView.OnItemTo
     mOnHeaderClickListener = listener;
   }
 
+  public void setOnHeaderGestureListener(OnHeaderGestureListener listener) {
+    mOnHeaderGestureListener = listener;
+    mGestureDetector.setIsLongpressEnabled(listener != null);
+  }
+
   @Override
   public boolean onInterceptTouchEvent(RecyclerView view, MotionEvent e) {
-    if (this.mOnHeaderClickListener != null) {
-      boolean tapDetectorResponse = this.mTapDetector.onTouchEvent(e);
-      if (tapDetectorResponse) {
-        // Don't return false if a single tap is detected
-        return true;
-      }
-      if (e.getAction() == MotionEvent.ACTION_DOWN) {
-        int position = mDecor.findHeaderPositionUnder((int)e.getX(), (int)e.getY());
-        return position != -1;
-      }
+    if (e.getActionMasked() != MotionEvent.ACTION_DOWN) {
+      return false;
     }
-    return false;
+
+    releaseTouchedHeader();
+
+    int position = mDecor.findHeaderPositionUnder((int) e.getX(), (int) e.getY());
+    if (position == -1) {
+      return false;
+    }
+
+    View header = mDecor.getDrawnHeaderView(mRecyclerView, position);
+    Rect bounds = mDecor.getDrawnHeaderBounds(position);
+    boolean hasClickableChild = HeaderTouchTargets.findClickableChildUnder(header, e.getX() - bounds.left, e.getY() - bounds.top) != null;
+    if (mOnHeaderClickListener == null && mOnHeaderGestureListener == null && !hasClickableChild) {
+      return false;
+    }
+
+    mTouchedHeader = header;
+    mTouchedPosition = position;
+    mTouchedHeaderBounds.set(bounds);
+
+    mGestureDetector.onTouchEvent(e);
+    dispatchToTouchedHeader(e, MotionEvent.ACTION_DOWN);
+    return true;
   }
 
   @Override
-  public void onTouchEvent(RecyclerView view, MotionEvent e) { /* do nothing? */ }
+  public void onTouchEvent(RecyclerView view, MotionEvent e) {
+    if (mTouchedHeader == null) {
+      return;
+    }
+
+    mGestureDetector.onTouchEvent(e);
+
+    int action = e.getActionMasked();
+    if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+      releaseTouchedHeader();
+    } else {
+      dispatchToTouchedHeader(e, action);
+    }
+  }
 
   @Override public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
     // do nothing
   }
 
-  private class SingleTapDetector extends GestureDetector.SimpleOnGestureListener {
+  /**
+   * Forwards an event to the touched header, translated into its coordinates. Headers are not
+   * attached, so clicks posted by their children would never run: the gesture is ended with a
+   * cancel instead of an up, and taps are performed by {@link HeaderGestureDetector}.
+   */
+  private void dispatchToTouchedHeader(MotionEvent e, int action) {
+    MotionEvent headerEvent = MotionEvent.obtain(e);
+    headerEvent.setAction(action);
+    headerEvent.offsetLocation(-mTouchedHeaderBounds.left, -mTouchedHeaderBounds.top);
+    mTouchedHeader.dispatchTouchEvent(headerEvent);
+    headerEvent.recycle();
+
+    // Headers are drawn by the decoration, so their pressed state shows on the next frame
+    mRecyclerView.invalidate();
+  }
+
+  private void releaseTouchedHeader() {
+    if (mTouchedHeader != null) {
+      MotionEvent cancel = MotionEvent.obtain(0, 0, MotionEvent.ACTION_CANCEL, 0, 0, 0);
+      mTouchedHeader.dispatchTouchEvent(cancel);
+      cancel.recycle();
+
+      mTouchedHeader = null;
+      mTouchedPosition = -1;
+      mRecyclerView.invalidate();
+    }
+  }
+
+  private long getHeaderId(int position) {
+    return getAdapter().getHeaderId(position);
+  }
+
+  private boolean isDoubleTapEnabled() {
+    return mOnHeaderGestureListener != null && mOnHeaderGestureListener.isDoubleTapEnabled();
+  }
+
+  /**
+   * Clicks the child of the header under the tap, or the header itself
+   *
+   * @param x in the coordinates of the header
+   * @param y in the coordinates of the header
+   */
+  private boolean performHeaderTap(View header, int position, float x, float y) {
+    View child = HeaderTouchTargets.findClickableChildUnder(header, x, y);
+    if (child != null) {
+      // The child is not attached, so it can't play the click sound itself
+      child.performClick();
+      mRecyclerView.playSoundEffect(SoundEffectConstants.CLICK);
+      return true;
+    }
+
+    if (mOnHeaderClickListener != null) {
+      mOnHeaderClickListener.onHeaderClick(header, position, getHeaderId(position));
+      mRecyclerView.playSoundEffect(SoundEffectConstants.CLICK);
+      return true;
+    }
+    return false;
+  }
+
+  private class HeaderGestureDetector extends GestureDetector.SimpleOnGestureListener {
+    @Override
+    public boolean onDown(MotionEvent e) {
+      return mTouchedHeader != null;
+    }
+
     @Override
     public boolean onSingleTapUp(MotionEvent e) {
-      int position = mDecor.findHeaderPositionUnder((int) e.getX(), (int) e.getY());
-      if (position != -1) {
-        View headerView = mDecor.getHeaderView(mRecyclerView, position);
-        long headerId = getAdapter().getHeaderId(position);
-        mOnHeaderClickListener.onHeaderClick(headerView, position, headerId);
-        mRecyclerView.playSoundEffect(SoundEffectConstants.CLICK);
-        headerView.onTouchEvent(e);
+      if (mTouchedHeader == null) {
+        return false;
+      }
+
+      float x = e.getX() - mTouchedHeaderBounds.left;
+      float y = e.getY() - mTouchedHeaderBounds.top;
+
+      if (isDoubleTapEnabled()) {
+        // Wait for onSingleTapConfirmed, the header is released by then
+        mTappedHeader = mTouchedHeader;
+        mTappedPosition = mTouchedPosition;
+        mTappedX = x;
+        mTappedY = y;
         return true;
       }
-      return false;
+
+      return performHeaderTap(mTouchedHeader, mTouchedPosition, x, y);
+    }
+
+    @Override
+    public boolean onSingleTapConfirmed(MotionEvent e) {
+      View header = mTappedHeader;
+      mTappedHeader = null;
+
+      if (header == null || !isDoubleTapEnabled()) {
+        return false;
+      }
+      return performHeaderTap(header, mTappedPosition, mTappedX, mTappedY);
     }
 
     @Override
     public boolean onDoubleTap(MotionEvent e) {
+      mTappedHeader = null;
+
+      if (mTouchedHeader == null || !isDoubleTapEnabled()) {
+        return true;
+      }
+      return mOnHeaderGestureListener.onHeaderDoubleTap(mTouchedHeader, mTouchedPosition, getHeaderId(mTouchedPosition));
+    }
+
+    @Override
+    public void onLongPress(MotionEvent e) {
+      if (mTouchedHeader == null || mOnHeaderGestureListener == null) {
+        return;
+      }
+
+      View child = HeaderTouchTargets.findClickableChildUnder(mTouchedHeader, e.getX() - mTouchedHeaderBounds.left, e.getY() - mTouchedHeaderBounds.top);
+      if (child != null && child.isLongClickable()) {
+        child.performLongClick();
+      } else {
+        mOnHeaderGestureListener.onHeaderLongPress(mTouchedHeader, mTouchedPosition, getHeaderId(mTouchedPosition));
+      }
+      mRecyclerView.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+    }
+
+    @Override
+    public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+      if (mTouchedHeader == null || mOnHeaderGestureListener == null) {
+        return false;
+      }
+
+      mOnHeaderGestureListener.onHeaderSwipe(mTouchedHeader, mTouchedPosition, getHeaderId(mTouchedPosition), velocityX, velocityY);
       return true;
     }
   }
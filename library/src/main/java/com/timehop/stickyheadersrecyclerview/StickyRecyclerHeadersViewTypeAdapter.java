@@ -0,0 +1,19 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * A {@link StickyRecyclerHeadersAdapter} using more than one kind of header view. Header views are
+ * only reused for headers of the same view type, the same way
+ * {@link RecyclerView.Adapter#getItemViewType(int)} works for items.
+ */
+public interface StickyRecyclerHeadersViewTypeAdapter<VH extends RecyclerView.ViewHolder> extends StickyRecyclerHeadersAdapter<VH> {
+  /**
+   * Get the view type of the header associated with this item. Headers of adapters that don't
+   * implement this interface all have the view type 0.
+   *
+   * @param position the position of the view to get the header view type of
+   * @return the header view type, 0 or greater
+   */
+  int getHeaderViewType(int position);
+}
@@ -0,0 +1,20 @@
+package com.timehop.stickyheadersrecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * A {@link StickyRecyclerHeadersAdapter} whose headers are a single piece of text. Given to a
+ * {@link com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration} with a
+ * {@link com.timehop.stickyheadersrecyclerview.rendering.TextHeaderStyle}, the text of each header
+ * is laid out and drawn directly, without creating header views: {@link #onCreateHeaderViewHolder}
+ * and {@link #onBindHeaderViewHolder} are then never called.
+ */
+public interface StickyRecyclerTextHeadersAdapter<VH extends RecyclerView.ViewHolder> extends StickyRecyclerHeadersAdapter<VH> {
+  /**
+   * Get the text of the header of an item. Items with the same header id must have the same text.
+   *
+   * @param position the position of the item
+   * @return the text of the header
+   */
+  CharSequence getHeaderText(int position);
+}
@@ -0,0 +1,233 @@
+package com.timehop.stickyheadersrecyclerview.caching;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.v4.util.LongSparseArray;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
+import com.timehop.stickyheadersrecyclerview.rendering.HeaderDrawer;
+import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An implementation of {@link HeaderProvider} for headers drawn by a {@link HeaderDrawer}. Only the
+ * size of each header is cached by header id. The rest of the decoration, and the listeners, still
+ * work with views: the headers used by a frame are lent lightweight views that draw them through the
+ * drawer, and these views go back to a free list once their header is not used anymore. The number
+ * of views is bound by the number of headers on screen, however many sections the adapter has.
+ */
+public class DrawnHeaderCache implements HeaderProvider {
+
+  private final StickyRecyclerHeadersAdapter mAdapter;
+  private final OrientationProvider mOrientationProvider;
+  private final HeaderDrawer mDrawer;
+
+  private final LongSparseArray<DrawnHeader> mHeaders = new LongSparseArray<>();
+
+  /**
+   * Headers currently lent a view, the only ones looked at once per frame
+   */
+  private final List<DrawnHeader> mBoundHeaders = new ArrayList<>();
+  private final List<DrawnHeaderView> mFreeViews = new ArrayList<>();
+  private final Rect mSize = new Rect();
+
+  private int mFrame;
+
+  public DrawnHeaderCache(StickyRecyclerHeadersAdapter adapter, OrientationProvider orientationProvider, HeaderDrawer drawer) {
+    mAdapter = adapter;
+    mOrientationProvider = orientationProvider;
+    mDrawer = drawer;
+  }
+
+  @Override
+  public View getHeader(RecyclerView parent, int position) {
+    long headerId = mAdapter.getHeaderId(position);
+
+    int widthSpec;
+    int heightSpec;
+    if (mOrientationProvider.getOrientation(parent) == LinearLayoutManager.VERTICAL) {
+      widthSpec = View.MeasureSpec.makeMeasureSpec(parent.getWidth(), View.MeasureSpec.EXACTLY);
+      heightSpec = View.MeasureSpec.makeMeasureSpec(parent.getHeight(), View.MeasureSpec.UNSPECIFIED);
+    } else {
+      widthSpec = View.MeasureSpec.makeMeasureSpec(parent.getWidth(), View.MeasureSpec.UNSPECIFIED);
+      heightSpec = View.MeasureSpec.makeMeasureSpec(parent.getHeight(), View.MeasureSpec.EXACTLY);
+    }
+    widthSpec = ViewGroup.getChildMeasureSpec(widthSpec, parent.getPaddingLeft() + parent.getPaddingRight(), ViewGroup.LayoutParams.MATCH_PARENT);
+    heightSpec = ViewGroup.getChildMeasureSpec(heightSpec, parent.getPaddingTop() + parent.getPaddingBottom(), ViewGroup.LayoutParams.MATCH_PARENT);
+
+    DrawnHeader drawnHeader = mHeaders.get(headerId);
+    if (drawnHeader == null) {
+      drawnHeader = new DrawnHeader(headerId);
+      mHeaders.put(headerId, drawnHeader);
+    }
+
+    if (drawnHeader.stale || drawnHeader.widthSpec != widthSpec || drawnHeader.heightSpec != heightSpec) {
+      mSize.setEmpty();
+      mDrawer.measureHeader(position, headerId, widthSpec, heightSpec, mSize);
+      drawnHeader.width = mSize.width();
+      drawnHeader.height = mSize.height();
+      drawnHeader.widthSpec = widthSpec;
+      drawnHeader.heightSpec = heightSpec;
+      drawnHeader.stale = false;
+    }
+
+    drawnHeader.lastUsedFrame = mFrame;
+
+    if (drawnHeader.view == null) {
+      drawnHeader.view = obtainView(parent.getContext());
+      mBoundHeaders.add(drawnHeader);
+    }
+    drawnHeader.view.bind(headerId, drawnHeader.width, drawnHeader.height);
+
+    return drawnHeader.view;
+  }
+
+  @Override
+  public View getPinnedHeader(RecyclerView parent, int position) {
+    return getHeader(parent, position);
+  }
+
+  private DrawnHeaderView obtainView(Context context) {
+    if (!mFreeViews.isEmpty()) {
+      return mFreeViews.remove(mFreeViews.size() - 1);
+    }
+    return new DrawnHeaderView(context, mDrawer);
+  }
+
+  @Override
+  public void invalidate() {
+    mHeaders.clear();
+    mDrawer.invalidateHeaders();
+  }
+
+  @Override
+  public void invalidate(long headerId) {
+    // A view lent to the header is taken back by the next call to recycleUnusedHeaders
+    mHeaders.remove(headerId);
+    mDrawer.invalidateHeader(headerId);
+  }
+
+  @Override
+  public void rebind(long headerId) {
+    DrawnHeader drawnHeader = mHeaders.get(headerId);
+    if (drawnHeader != null) {
+      drawnHeader.stale = true;
+    }
+    mDrawer.invalidateHeader(headerId);
+  }
+
+  @Override
+  public void rebind(long headerId, Object payload) {
+    // Drawn headers have nothing to bind, the drawer is asked to measure them again
+    rebind(headerId);
+  }
+
+  @Override
+  public void setHeaderViewPool(HeaderViewPool headerViewPool) {
+    // Drawn headers don't come from view holders, there is nothing to share with other providers
+  }
+
+  @Override
+  public void recycleUnusedHeaders() {
+    for (int i = mBoundHeaders.size() - 1; i >= 0; i--) {
+      DrawnHeader drawnHeader = mBoundHeaders.get(i);
+      if (drawnHeader.lastUsedFrame != mFrame || mHeaders.get(drawnHeader.headerId) != drawnHeader) {
+        mFreeViews.add(drawnHeader.view);
+        drawnHeader.view = null;
+        mBoundHeaders.remove(i);
+      }
+    }
+
+    mFrame++;
+  }
+
+  @Override
+  public void trimMemory(int level) {
+    mFreeViews.clear();
+
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      mHeaders.clear();
+      mBoundHeaders.clear();
+      mDrawer.invalidateHeaders();
+      return;
+    }
+
+    // Keep the headers drawn in the last frame, they are the ones on screen
+    for (int i = mHeaders.size() - 1; i >= 0; i--) {
+      DrawnHeader drawnHeader = mHeaders.valueAt(i);
+      if (drawnHeader.lastUsedFrame < mFrame - 1) {
+        mHeaders.removeAt(i);
+        mDrawer.invalidateHeader(drawnHeader.headerId);
+      }
+    }
+  }
+
+  @Override
+  public long getEstimatedRetainedBytes() {
+    long bytes = 0;
+    for (int i = 0; i < mBoundHeaders.size(); i++) {
+      bytes += HeaderViewCache.getEstimatedBytes(mBoundHeaders.get(i).view);
+    }
+    return bytes;
+  }
+
+  private static class DrawnHeader {
+    final long headerId;
+    int width;
+    int height;
+    int widthSpec;
+    int heightSpec;
+    boolean stale = true;
+    int lastUsedFrame;
+    DrawnHeaderView view;
+
+    DrawnHeader(long headerId) {
+      this.headerId = headerId;
+    }
+  }
+
+  /**
+   * Stands for a drawn header while it is used, drawing it through the drawer. It has no children
+   * and no layout params, and is laid out at the size measured by the drawer.
+   */
+  private static class DrawnHeaderView extends View {
+    private final HeaderDrawer mDrawer;
+    private long mHeaderId;
+
+    DrawnHeaderView(Context context, HeaderDrawer drawer) {
+      super(context);
+      mDrawer = drawer;
+    }
+
+    void bind(long headerId, int width, int height) {
+      mHeaderId = headerId;
+      if (getWidth() != width || getHeight() != height) {
+        measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        layout(0, 0, width, height);
+      }
+    }
+
+    @Override
+    public boolean isOpaque() {
+      return mDrawer.isHeaderOpaque(mHeaderId);
+    }
+
+    @Override
+    public CharSequence getContentDescription() {
+      return mDrawer.getHeaderDescription(mHeaderId);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+      mDrawer.drawHeader(canvas, mHeaderId, getWidth(), getHeight());
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.timehop.stickyheadersrecyclerview.caching;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerFootersAdapter;
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
+import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
+
+/**
+ * A {@link HeaderViewCache} for the footers of a {@link StickyRecyclerFootersAdapter}. Footers are
+ * cached by the id of the header of their section.
+ */
+public class FooterViewCache extends HeaderViewCache {
+
+  public FooterViewCache(StickyRecyclerFootersAdapter adapter, OrientationProvider orientationProvider) {
+    super(new FooterAdapter(adapter), orientationProvider);
+  }
+
+  /**
+   * Presents the footers of an adapter as its headers
+   */
+  private static class FooterAdapter implements StickyRecyclerHeadersAdapter<RecyclerView.ViewHolder> {
+
+    private final StickyRecyclerFootersAdapter mAdapter;
+
+    FooterAdapter(StickyRecyclerFootersAdapter adapter) {
+      mAdapter = adapter;
+    }
+
+    @Override
+    public long getHeaderId(int position) {
+      return mAdapter.getHeaderId(position);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateHeaderViewHolder(ViewGroup parent, int position) {
+      return mAdapter.onCreateFooterViewHolder(parent, position);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBindHeaderViewHolder(RecyclerView.ViewHolder holder, int position) {
+      mAdapter.onBindFooterViewHolder(holder, position);
+    }
+
+    @Override
+    public int getItemCount() {
+      return mAdapter.getItemCount();
+    }
+
+    @Override
+    public int getNumColumns() {
+      return mAdapter.getNumColumns();
+    }
+
+    @Override
+    public int getSpanSize(int position) {
+      return mAdapter.getSpanSize(position);
+    }
+  }
+}
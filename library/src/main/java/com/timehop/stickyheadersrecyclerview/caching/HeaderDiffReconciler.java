@@ -0,0 +1,164 @@
+package com.timehop.stickyheadersrecyclerview.caching;
+
+import android.support.v4.util.LongSparseArray;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
+
+/**
+ * Applies the updates of a {@link DiffUtil.DiffResult} to a {@link HeaderProvider} and its
+ * {@link SectionIndex}. A header is kept as is when the first item of its section is still the
+ * same, unchanged item. It is rebound when its section now starts with another or a changed item,
+ * and dropped when no section uses its id anymore.
+ */
+public class HeaderDiffReconciler implements ListUpdateCallback {
+
+  private static final int CHANGED = -1;
+
+  private final StickyRecyclerHeadersAdapter mAdapter;
+  private final SectionIndex mSectionIndex;
+  private final HeaderProvider mHeaderProvider;
+
+  /**
+   * For every position of the list being updated, the position the item had before the update or
+   * {@link #CHANGED} if the item was inserted or changed
+   */
+  private int[] mOldPositions;
+  private int mSize;
+  private boolean mConsistent;
+
+  public HeaderDiffReconciler(StickyRecyclerHeadersAdapter adapter, SectionIndex sectionIndex, HeaderProvider headerProvider) {
+    mAdapter = adapter;
+    mSectionIndex = sectionIndex;
+    mHeaderProvider = headerProvider;
+  }
+
+  /**
+   * Reconciles the cached headers with the content of the adapter. The adapter must already hold
+   * the new data and the section index must still describe the old one, which is the case until
+   * the next layout after the data changed.
+   *
+   * @param diffResult the result that was dispatched to the adapter
+   */
+  public void apply(DiffUtil.DiffResult diffResult) {
+    if (!mSectionIndex.isValid()) {
+      mHeaderProvider.invalidate();
+      return;
+    }
+
+    if (!mSectionIndex.isStale() && mSectionIndex.getItemCount() == mAdapter.getItemCount()) {
+      // The index already followed the items inserted at its ends, existing headers are unchanged
+      return;
+    }
+
+    int oldItemCount = mSectionIndex.getItemCount();
+    mOldPositions = new int[Math.max(oldItemCount, 1)];
+    for (int i = 0; i < oldItemCount; i++) {
+      mOldPositions[i] = i;
+    }
+    mSize = oldItemCount;
+    mConsistent = true;
+
+    diffResult.dispatchUpdatesTo(this);
+
+    SectionIndex newIndex = new SectionIndex(mAdapter);
+    newIndex.build();
+
+    if (mConsistent && mSize == newIndex.getItemCount()) {
+      reconcile(newIndex);
+    } else {
+      // The index was already rebuilt, or the diff does not match the adapter
+      mHeaderProvider.invalidate();
+    }
+
+    mSectionIndex.set(newIndex);
+    mOldPositions = null;
+  }
+
+  private void reconcile(SectionIndex newIndex) {
+    LongSparseArray<Boolean> headerIds = new LongSparseArray<>(newIndex.getSectionCount());
+
+    for (int section = 0; section < newIndex.getSectionCount(); section++) {
+      long headerId = newIndex.getSectionHeaderId(section);
+      if (headerId < 0) {
+        continue;
+      }
+      headerIds.put(headerId, Boolean.TRUE);
+
+      int oldPosition = mOldPositions[newIndex.getSectionStart(section)];
+      boolean unchanged = oldPosition != CHANGED
+          && mSectionIndex.isSectionStart(oldPosition)
+          && mSectionIndex.getHeaderId(oldPosition) == headerId;
+      if (!unchanged) {
+        mHeaderProvider.rebind(headerId);
+      }
+    }
+
+    for (int section = 0; section < mSectionIndex.getSectionCount(); section++) {
+      long headerId = mSectionIndex.getSectionHeaderId(section);
+      if (headerId >= 0 && headerIds.get(headerId) == null) {
+        mHeaderProvider.invalidate(headerId);
+      }
+    }
+  }
+
+  @Override
+  public void onInserted(int position, int count) {
+    if (position < 0 || position > mSize) {
+      mConsistent = false;
+      return;
+    }
+
+    if (mSize + count > mOldPositions.length) {
+      int[] oldPositions = new int[Math.max(mSize + count, mOldPositions.length * 2)];
+      System.arraycopy(mOldPositions, 0, oldPositions, 0, mSize);
+      mOldPositions = oldPositions;
+    }
+
+    System.arraycopy(mOldPositions, position, mOldPositions, position + count, mSize - position);
+    for (int i = position; i < position + count; i++) {
+      mOldPositions[i] = CHANGED;
+    }
+    mSize += count;
+  }
+
+  @Override
+  public void onRemoved(int position, int count) {
+    if (position < 0 || position + count > mSize) {
+      mConsistent = false;
+      return;
+    }
+
+    System.arraycopy(mOldPositions, position + count, mOldPositions, position, mSize - position - count);
+    mSize -= count;
+  }
+
+  @Override
+  public void onMoved(int fromPosition, int toPosition) {
+    if (fromPosition < 0 || fromPosition >= mSize || toPosition < 0 || toPosition >= mSize) {
+      mConsistent = false;
+      return;
+    }
+
+    int oldPosition = mOldPositions[fromPosition];
+    if (fromPosition < toPosition) {
+      System.arraycopy(mOldPositions, fromPosition + 1, mOldPositions, fromPosition, toPosition - fromPosition);
+    } else {
+      System.arraycopy(mOldPositions, toPosition, mOldPositions, toPosition + 1, fromPosition - toPosition);
+    }
+    mOldPositions[toPosition] = oldPosition;
+  }
+
+  @Override
+  public void onChanged(int position, int count, Object payload) {
+    if (position < 0 || position + count > mSize) {
+      mConsistent = false;
+      return;
+    }
+
+    for (int i = position; i < position + count; i++) {
+      mOldPositions[i] = CHANGED;
+    }
+  }
+}
@@ -17,8 +17,68 @@ public interface HeaderProvider {
    */
   public View getHeader(RecyclerView recyclerView, int position);
 
+  /**
+   * Will provide the header view drawn while the header of a given position is pinned
+   *
+   * @param recyclerView that will display the header
+   * @param position     that will be headed by the header
+   * @return the pinned header view, or the same view as {@link #getHeader(RecyclerView, int)} if
+   * the adapter has no pinned headers
+   */
+  View getPinnedHeader(RecyclerView recyclerView, int position);
+
   /**
    * TODO: describe this functionality and its necessity
    */
   void invalidate();
+
+  /**
+   * Drops the header with the given id, it will be created again the next time it is needed
+   *
+   * @param headerId of the header to drop
+   */
+  void invalidate(long headerId);
+
+  /**
+   * Marks the header with the given id as stale. It is kept, and bound again in place the next
+   * time it is needed.
+   *
+   * @param headerId of the header to rebind
+   */
+  void rebind(long headerId);
+
+  /**
+   * Marks the header with the given id as stale, to be updated with the given payload the next
+   * time it is needed. Payloads accumulate until the header is bound.
+   *
+   * @param headerId of the header to rebind
+   * @param payload  to bind the header with, or null for a full bind
+   */
+  void rebind(long headerId, Object payload);
+
+  /**
+   * Sets the pool that dropped headers are recycled into, and new headers are taken from
+   *
+   * @param headerViewPool pool of unused headers, possibly shared with other providers, or null
+   */
+  void setHeaderViewPool(HeaderViewPool headerViewPool);
+
+  /**
+   * Called once a frame has been drawn after a layout. Headers that were not requested since the
+   * previous call are recycled into the pool, if one is set.
+   */
+  void recycleUnusedHeaders();
+
+  /**
+   * Releases memory according to a {@link android.content.ComponentCallbacks2} trim level. Released
+   * headers are created again the next time they are needed.
+   *
+   * @param level trim level, as given to {@link android.content.ComponentCallbacks2#onTrimMemory(int)}
+   */
+  void trimMemory(int level);
+
+  /**
+   * @return estimation of the memory retained by the headers currently cached, in bytes
+   */
+  long getEstimatedRetainedBytes();
 }
@@ -1,5 +1,6 @@
 package com.timehop.stickyheadersrecyclerview.caching;
 
+import android.content.ComponentCallbacks2;
 import android.support.v4.util.LongSparseArray;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
@@ -7,17 +8,35 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersPayloadAdapter;
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersPinnedAdapter;
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersViewTypeAdapter;
 import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * An implementation of {@link HeaderProvider} that creates and caches header views
  */
 public class HeaderViewCache implements HeaderProvider {
 
+  private static final List<Object> FULL_BIND = Collections.emptyList();
+
+  /**
+   * Headers are accounted as if they were rendered into an ARGB_8888 buffer of their size
+   */
+  static final int BYTES_PER_PIXEL = 4;
+
   private final StickyRecyclerHeadersAdapter mAdapter;
-  private final LongSparseArray<View> mHeaderViews = new LongSparseArray<>();
+  private final LongSparseArray<CachedHeader> mHeaderViews = new LongSparseArray<>();
+  private final LongSparseArray<CachedHeader> mPinnedHeaderViews = new LongSparseArray<>();
   private final OrientationProvider mOrientationProvider;
 
+  private HeaderViewPool mHeaderViewPool;
+  private int mFrame;
+
   public HeaderViewCache(StickyRecyclerHeadersAdapter adapter, OrientationProvider orientationProvider) {
     mAdapter = adapter;
     mOrientationProvider = orientationProvider;
@@ -25,43 +44,245 @@ public class HeaderViewCache implements HeaderProvider {
 
   @Override
   public View getHeader(RecyclerView parent, int position) {
+    return getHeader(mHeaderViews, parent, position, false);
+  }
+
+  @Override
+  public View getPinnedHeader(RecyclerView parent, int position) {
+    if (!(mAdapter instanceof StickyRecyclerHeadersPinnedAdapter)) {
+      return getHeader(parent, position);
+    }
+    return getHeader(mPinnedHeaderViews, parent, position, true);
+  }
+
+  private View getHeader(LongSparseArray<CachedHeader> headerViews, RecyclerView parent, int position, boolean pinned) {
     long headerId = mAdapter.getHeaderId(position);
 
-    View header = mHeaderViews.get(headerId);
+    CachedHeader cachedHeader = headerViews.get(headerId);
 
-    if (header == null) {
-      RecyclerView.ViewHolder viewHolder = mAdapter.onCreateHeaderViewHolder(parent, position);
-      mAdapter.onBindHeaderViewHolder(viewHolder, position);
-      header = viewHolder.itemView;
-      if (header.getLayoutParams() == null) {
-        header.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
-      }
+    if (cachedHeader == null) {
+      cachedHeader = createHeader(parent, position, pinned);
+      headerViews.put(headerId, cachedHeader);
+    } else if (cachedHeader.stalePayloads != null) {
+      bindStaleHeader(parent, cachedHeader, position);
+    }
+
+    cachedHeader.lastUsedFrame = mFrame;
+
+    return cachedHeader.viewHolder.itemView;
+  }
 
-      int widthSpec;
-      int heightSpec;
+  @SuppressWarnings("unchecked")
+  private CachedHeader createHeader(RecyclerView parent, int position, boolean pinned) {
+    int viewType = pinned ? -1 - getHeaderViewType(position) : getHeaderViewType(position);
 
-      if (mOrientationProvider.getOrientation(parent) == LinearLayoutManager.VERTICAL) {
-        widthSpec = View.MeasureSpec.makeMeasureSpec(parent.getWidth(), View.MeasureSpec.EXACTLY);
-        heightSpec = View.MeasureSpec.makeMeasureSpec(parent.getHeight(), View.MeasureSpec.UNSPECIFIED);
-      } else {
-        widthSpec = View.MeasureSpec.makeMeasureSpec(parent.getWidth(), View.MeasureSpec.UNSPECIFIED);
-        heightSpec = View.MeasureSpec.makeMeasureSpec(parent.getHeight(), View.MeasureSpec.EXACTLY);
+    RecyclerView.ViewHolder viewHolder = mHeaderViewPool != null ? mHeaderViewPool.getRecycledHeader(viewType) : null;
+    if (pinned) {
+      StickyRecyclerHeadersPinnedAdapter pinnedAdapter = (StickyRecyclerHeadersPinnedAdapter) mAdapter;
+      if (viewHolder == null) {
+        viewHolder = pinnedAdapter.onCreatePinnedHeaderViewHolder(parent, position);
+      }
+      pinnedAdapter.onBindPinnedHeaderViewHolder(viewHolder, position);
+    } else {
+      if (viewHolder == null) {
+        viewHolder = mAdapter.onCreateHeaderViewHolder(parent, position);
       }
+      mAdapter.onBindHeaderViewHolder(viewHolder, position);
+    }
+
+    View header = viewHolder.itemView;
+    if (header.getLayoutParams() == null) {
+      header.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+    }
+
+    measureHeader(parent, header);
+
+    return new CachedHeader(viewHolder, viewType, pinned);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void bindStaleHeader(RecyclerView parent, CachedHeader cachedHeader, int position) {
+    List<Object> payloads = cachedHeader.stalePayloads;
+    cachedHeader.stalePayloads = null;
+
+    if (cachedHeader.pinned) {
+      ((StickyRecyclerHeadersPinnedAdapter) mAdapter).onBindPinnedHeaderViewHolder(cachedHeader.viewHolder, position);
+    } else if (payloads != FULL_BIND && mAdapter instanceof StickyRecyclerHeadersPayloadAdapter) {
+      ((StickyRecyclerHeadersPayloadAdapter) mAdapter).onBindHeaderViewHolder(cachedHeader.viewHolder, position, payloads);
+    } else {
+      mAdapter.onBindHeaderViewHolder(cachedHeader.viewHolder, position);
+    }
+
+    // Header views are never attached, so a pending layout request means the bind may have
+    // changed the size of the header
+    if (cachedHeader.viewHolder.itemView.isLayoutRequested()) {
+      measureHeader(parent, cachedHeader.viewHolder.itemView);
+    }
+  }
 
-      int childWidth = ViewGroup.getChildMeasureSpec(widthSpec, parent.getPaddingLeft() + parent.getPaddingRight(), header.getLayoutParams().width);
-      int childHeight = ViewGroup.getChildMeasureSpec(heightSpec, parent.getPaddingTop() + parent.getPaddingBottom(), header.getLayoutParams().height);
+  private int getHeaderViewType(int position) {
+    if (mAdapter instanceof StickyRecyclerHeadersViewTypeAdapter) {
+      return ((StickyRecyclerHeadersViewTypeAdapter) mAdapter).getHeaderViewType(position);
+    }
+    return 0;
+  }
 
-      header.measure(childWidth, childHeight);
-      header.layout(0, 0, header.getMeasuredWidth(), header.getMeasuredHeight());
+  private void measureHeader(RecyclerView parent, View header) {
+    int widthSpec;
+    int heightSpec;
 
-      mHeaderViews.put(headerId, header);
+    if (mOrientationProvider.getOrientation(parent) == LinearLayoutManager.VERTICAL) {
+      widthSpec = View.MeasureSpec.makeMeasureSpec(parent.getWidth(), View.MeasureSpec.EXACTLY);
+      heightSpec = View.MeasureSpec.makeMeasureSpec(parent.getHeight(), View.MeasureSpec.UNSPECIFIED);
+    } else {
+      widthSpec = View.MeasureSpec.makeMeasureSpec(parent.getWidth(), View.MeasureSpec.UNSPECIFIED);
+      heightSpec = View.MeasureSpec.makeMeasureSpec(parent.getHeight(), View.MeasureSpec.EXACTLY);
     }
 
-    return header;
+    int childWidth = ViewGroup.getChildMeasureSpec(widthSpec, parent.getPaddingLeft() + parent.getPaddingRight(), header.getLayoutParams().width);
+    int childHeight = ViewGroup.getChildMeasureSpec(heightSpec, parent.getPaddingTop() + parent.getPaddingBottom(), header.getLayoutParams().height);
+
+    header.measure(childWidth, childHeight);
+    header.layout(0, 0, header.getMeasuredWidth(), header.getMeasuredHeight());
   }
 
   @Override
   public void invalidate() {
-    mHeaderViews.clear();
+    invalidate(mHeaderViews);
+    invalidate(mPinnedHeaderViews);
+  }
+
+  private void invalidate(LongSparseArray<CachedHeader> headerViews) {
+    for (int i = 0; i < headerViews.size(); i++) {
+      recycle(headerViews.valueAt(i));
+    }
+    headerViews.clear();
+  }
+
+  @Override
+  public void invalidate(long headerId) {
+    invalidate(mHeaderViews, headerId);
+    invalidate(mPinnedHeaderViews, headerId);
+  }
+
+  private void invalidate(LongSparseArray<CachedHeader> headerViews, long headerId) {
+    CachedHeader cachedHeader = headerViews.get(headerId);
+    if (cachedHeader != null) {
+      recycle(cachedHeader);
+      headerViews.remove(headerId);
+    }
+  }
+
+  @Override
+  public void rebind(long headerId) {
+    rebind(headerId, null);
+  }
+
+  @Override
+  public void rebind(long headerId, Object payload) {
+    rebind(mHeaderViews.get(headerId), payload);
+    rebind(mPinnedHeaderViews.get(headerId), payload);
+  }
+
+  private void rebind(CachedHeader cachedHeader, Object payload) {
+    if (cachedHeader == null) {
+      return;
+    }
+
+    if (payload == null) {
+      cachedHeader.stalePayloads = FULL_BIND;
+    } else if (cachedHeader.stalePayloads == null) {
+      cachedHeader.stalePayloads = new ArrayList<>();
+      cachedHeader.stalePayloads.add(payload);
+    } else if (cachedHeader.stalePayloads != FULL_BIND) {
+      cachedHeader.stalePayloads.add(payload);
+    }
+  }
+
+  @Override
+  public void setHeaderViewPool(HeaderViewPool headerViewPool) {
+    mHeaderViewPool = headerViewPool;
+  }
+
+  @Override
+  public void recycleUnusedHeaders() {
+    if (mHeaderViewPool != null) {
+      recycleUnusedHeaders(mHeaderViews);
+      recycleUnusedHeaders(mPinnedHeaderViews);
+    }
+
+    mFrame++;
+  }
+
+  private void recycleUnusedHeaders(LongSparseArray<CachedHeader> headerViews) {
+    for (int i = headerViews.size() - 1; i >= 0; i--) {
+      CachedHeader cachedHeader = headerViews.valueAt(i);
+      if (cachedHeader.lastUsedFrame != mFrame) {
+        mHeaderViewPool.putRecycledHeader(cachedHeader.viewType, cachedHeader.viewHolder);
+        headerViews.removeAt(i);
+      }
+    }
+  }
+
+  @Override
+  public void trimMemory(int level) {
+    if (mHeaderViewPool != null) {
+      mHeaderViewPool.clear();
+    }
+
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      mHeaderViews.clear();
+      mPinnedHeaderViews.clear();
+      return;
+    }
+
+    trimUnusedHeaders(mHeaderViews);
+    trimUnusedHeaders(mPinnedHeaderViews);
+  }
+
+  private void trimUnusedHeaders(LongSparseArray<CachedHeader> headerViews) {
+    // Keep the headers drawn in the last frame, they are the ones on screen
+    for (int i = headerViews.size() - 1; i >= 0; i--) {
+      if (headerViews.valueAt(i).lastUsedFrame < mFrame - 1) {
+        headerViews.removeAt(i);
+      }
+    }
+  }
+
+  @Override
+  public long getEstimatedRetainedBytes() {
+    return getEstimatedRetainedBytes(mHeaderViews) + getEstimatedRetainedBytes(mPinnedHeaderViews);
+  }
+
+  private static long getEstimatedRetainedBytes(LongSparseArray<CachedHeader> headerViews) {
+    long bytes = 0;
+    for (int i = 0; i < headerViews.size(); i++) {
+      bytes += getEstimatedBytes(headerViews.valueAt(i).viewHolder.itemView);
+    }
+    return bytes;
+  }
+
+  static long getEstimatedBytes(View header) {
+    return (long) header.getWidth() * header.getHeight() * BYTES_PER_PIXEL;
+  }
+
+  private void recycle(CachedHeader cachedHeader) {
+    if (mHeaderViewPool != null) {
+      mHeaderViewPool.putRecycledHeader(cachedHeader.viewType, cachedHeader.viewHolder);
+    }
+  }
+
+  private static class CachedHeader {
+    final RecyclerView.ViewHolder viewHolder;
+    final int viewType;
+    final boolean pinned;
+    List<Object> stalePayloads;
+    int lastUsedFrame;
+
+    CachedHeader(RecyclerView.ViewHolder viewHolder, int viewType, boolean pinned) {
+      this.viewHolder = viewHolder;
+      this.viewType = viewType;
+      this.pinned = pinned;
+    }
   }
 }
@@ -0,0 +1,99 @@
+package com.timehop.stickyheadersrecyclerview.caching;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.util.ArrayList;
+
+/**
+ * Keeps header view holders that are not in use so they can be bound again instead of being
+ * inflated, like {@link RecyclerView.RecycledViewPool} does for items. A pool can be shared by the
+ * decorations of several RecyclerViews, in which case header view types must mean the same
+ * layout for all of their adapters.
+ *
+ * @see com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersViewTypeAdapter
+ */
+public class HeaderViewPool {
+
+  private static final int DEFAULT_MAX_RECYCLED_HEADERS = 5;
+
+  private final SparseArray<ArrayList<RecyclerView.ViewHolder>> mScrap = new SparseArray<>();
+  private final SparseIntArray mMaxRecycledHeaders = new SparseIntArray();
+
+  /**
+   * Sets the maximum number of unused headers of a view type kept by the pool
+   *
+   * @param headerViewType view type of the headers
+   * @param max            number of headers to keep, extra headers are dropped
+   */
+  public void setMaxRecycledHeaders(int headerViewType, int max) {
+    mMaxRecycledHeaders.put(headerViewType, max);
+
+    ArrayList<RecyclerView.ViewHolder> scrap = mScrap.get(headerViewType);
+    while (scrap != null && scrap.size() > max) {
+      scrap.remove(scrap.size() - 1);
+    }
+  }
+
+  /**
+   * @param headerViewType view type of the header
+   * @return an unused header of the view type, or null if there are none
+   */
+  public RecyclerView.ViewHolder getRecycledHeader(int headerViewType) {
+    ArrayList<RecyclerView.ViewHolder> scrap = mScrap.get(headerViewType);
+    if (scrap == null || scrap.isEmpty()) {
+      return null;
+    }
+
+    return scrap.remove(scrap.size() - 1);
+  }
+
+  /**
+   * Adds a header that is not used anymore to the pool, unless the pool is full for its view type
+   *
+   * @param headerViewType view type of the header
+   * @param header         view holder of the header
+   */
+  public void putRecycledHeader(int headerViewType, RecyclerView.ViewHolder header) {
+    ArrayList<RecyclerView.ViewHolder> scrap = mScrap.get(headerViewType);
+    if (scrap == null) {
+      scrap = new ArrayList<>();
+      mScrap.put(headerViewType, scrap);
+    }
+
+    if (scrap.size() < mMaxRecycledHeaders.get(headerViewType, DEFAULT_MAX_RECYCLED_HEADERS)) {
+      scrap.add(header);
+    }
+  }
+
+  /**
+   * @param headerViewType view type of the headers
+   * @return number of unused headers of the view type kept by the pool
+   */
+  public int getRecycledHeaderCount(int headerViewType) {
+    ArrayList<RecyclerView.ViewHolder> scrap = mScrap.get(headerViewType);
+    return scrap != null ? scrap.size() : 0;
+  }
+
+  /**
+   * @return estimation of the memory retained by the unused headers of the pool, in bytes
+   */
+  public long getEstimatedRetainedBytes() {
+    long bytes = 0;
+    for (int i = 0; i < mScrap.size(); i++) {
+      ArrayList<RecyclerView.ViewHolder> scrap = mScrap.valueAt(i);
+      for (int j = 0; j < scrap.size(); j++) {
+        bytes += HeaderViewCache.getEstimatedBytes(scrap.get(j).itemView);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Drops all the unused headers
+   */
+  public void clear() {
+    mScrap.clear();
+  }
+}
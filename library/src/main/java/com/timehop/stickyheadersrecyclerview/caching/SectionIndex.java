@@ -0,0 +1,489 @@
+package com.timehop.stickyheadersrecyclerview.caching;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersSnapshotAdapter;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index of the sections of a {@link StickyRecyclerHeadersAdapter}. A section is a run of
+ * consecutive positions that share the same header id, so section boundaries can be looked up
+ * with a binary search instead of querying the adapter for the neighbors of every position.
+ * Sections are kept in a double ended array, so items inserted at either end of the adapter are
+ * indexed without touching the existing sections.
+ * <p>
+ * With a background executor, the index of a {@link StickyRecyclerHeadersSnapshotAdapter} is built
+ * from a snapshot of its header ids, in chunks scanned in parallel. The index is empty and not
+ * valid until the result is published on the UI thread, all at once, so callers fall back to
+ * comparing neighboring header ids in the meantime.
+ */
+public class SectionIndex {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Smallest number of positions worth scanning in a chunk of its own
+   */
+  private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+  /**
+   * Called on the UI thread when an index built in the background is published
+   */
+  public interface OnBuiltListener {
+    void onSectionIndexBuilt(SectionIndex sectionIndex);
+  }
+
+  private final StickyRecyclerHeadersAdapter mAdapter;
+
+  /**
+   * Section starts are stored relative to {@link #mPositionOffset}, so that shifting every section
+   * after an insertion at the start of the adapter is a single addition
+   */
+  private int[] mSectionStarts = new int[INITIAL_CAPACITY];
+  private long[] mHeaderIds = new long[INITIAL_CAPACITY];
+  private int mHead;
+  private int mSectionCount;
+  private int mPositionOffset;
+  private int mItemCount;
+  private boolean mValid;
+
+  /**
+   * Set when the adapter changed in a way the index cannot follow. The sections still describe the
+   * data as it was before the change until the next {@link #ensureBuilt()}
+   */
+  private boolean mStale;
+
+  private Executor mBackgroundExecutor;
+  private OnBuiltListener mOnBuiltListener;
+  private Handler mMainHandler;
+  private boolean mBuilding;
+
+  /**
+   * Incremented when the index is invalidated, so that a background build started before is dropped
+   */
+  private int mGeneration;
+
+  public SectionIndex(StickyRecyclerHeadersAdapter adapter) {
+    mAdapter = adapter;
+  }
+
+  /**
+   * Sets the executor the index of a {@link StickyRecyclerHeadersSnapshotAdapter} is built on. Other
+   * adapters are still indexed on the calling thread.
+   *
+   * @param executor to run the chunks of the build on, or null to build on the calling thread
+   */
+  public void setBackgroundExecutor(Executor executor) {
+    mBackgroundExecutor = executor;
+  }
+
+  public void setOnBuiltListener(OnBuiltListener listener) {
+    mOnBuiltListener = listener;
+  }
+
+  /**
+   * Builds the index if it was invalidated or marked stale, or if the item count of the adapter
+   * changed since the last build. If the index is built in the background, it stays empty and not valid until the
+   * build is published.
+   */
+  public void ensureBuilt() {
+    if (mBuilding) {
+      return;
+    }
+
+    if (!mValid || mStale || mItemCount != mAdapter.getItemCount()) {
+      long[] headerIds = getHeaderIdSnapshot();
+      if (headerIds != null) {
+        buildInBackground(headerIds);
+      } else {
+        build();
+      }
+    }
+  }
+
+  /**
+   * @return the header ids to build the index from in the background, or null to build it now
+   */
+  private long[] getHeaderIdSnapshot() {
+    if (mBackgroundExecutor == null || !(mAdapter instanceof StickyRecyclerHeadersSnapshotAdapter)) {
+      return null;
+    }
+
+    long[] headerIds = ((StickyRecyclerHeadersSnapshotAdapter) mAdapter).getHeaderIdSnapshot();
+    // A snapshot out of date would be built again and again
+    return headerIds != null && headerIds.length == mAdapter.getItemCount() ? headerIds : null;
+  }
+
+  /**
+   * Rebuilds the index, querying the header id of every position of the adapter once.
+   */
+  public void build() {
+    int itemCount = mAdapter.getItemCount();
+
+    // A build in progress would replace this one
+    mGeneration++;
+    mBuilding = false;
+
+    mHead = 0;
+    mSectionCount = 0;
+    mPositionOffset = 0;
+    mItemCount = 0;
+    appendItems(itemCount);
+
+    mValid = true;
+    mStale = false;
+  }
+
+  /**
+   * Marks the index as stale, it will be rebuilt the next time {@link #ensureBuilt()} is called.
+   */
+  public void invalidate() {
+    mValid = false;
+    mGeneration++;
+    mBuilding = false;
+  }
+
+  /**
+   * @return true if the index was built and has not been invalidated since. The adapter may still
+   * have changed its item count, which is checked by {@link #ensureBuilt()}. False while the index
+   * is built in the background.
+   */
+  public boolean isValid() {
+    return mValid;
+  }
+
+  /**
+   * Marks the index as stale after items were changed, moved or removed. Unlike
+   * {@link #invalidate()}, the index stays valid and keeps describing the data as it was before the
+   * change, so it can still be diffed against, but it will be rebuilt the next time
+   * {@link #ensureBuilt()} is called.
+   */
+  public void markStale() {
+    if (mBuilding) {
+      // The snapshot being indexed in the background is already out of date
+      invalidate();
+    } else {
+      mStale = true;
+    }
+  }
+
+  /**
+   * @return true if the index was marked stale since it was last built
+   */
+  public boolean isStale() {
+    return mStale;
+  }
+
+  /**
+   * Updates the index after items were inserted in the adapter. Insertions at the start or at the
+   * end of the adapter only query the header ids of the new items and take constant amortized time
+   * per item. Insertions anywhere else, or dispatched along with other changes, mark the index as
+   * stale. An insertion the index already accounts for, because it was forwarded twice, is ignored.
+   *
+   * @param positionStart position of the first inserted item
+   * @param itemCount     number of inserted items
+   */
+  public void onItemRangeInserted(int positionStart, int itemCount) {
+    if (!mValid || mStale || itemCount <= 0) {
+      return;
+    }
+
+    int adapterItemCount = mAdapter.getItemCount();
+    if (mItemCount == adapterItemCount) {
+      return;
+    } else if (mItemCount + itemCount != adapterItemCount) {
+      // Other changes are dispatched along with this one
+      markStale();
+    } else if (mSectionCount > 0 && positionStart == mItemCount) {
+      appendItems(itemCount);
+    } else if (mSectionCount > 0 && positionStart == 0) {
+      prependItems(itemCount);
+    } else {
+      markStale();
+    }
+  }
+
+  /**
+   * Replaces the content of this index by the content of another one, without copying it.
+   *
+   * @param other index to take the sections from. It should not be used afterwards.
+   */
+  public void set(SectionIndex other) {
+    mGeneration++;
+    mBuilding = false;
+    mSectionStarts = other.mSectionStarts;
+    mHeaderIds = other.mHeaderIds;
+    mHead = other.mHead;
+    mSectionCount = other.mSectionCount;
+    mPositionOffset = other.mPositionOffset;
+    mItemCount = other.mItemCount;
+    mValid = other.mValid;
+    mStale = other.mStale;
+  }
+
+  public int getItemCount() {
+    return mItemCount;
+  }
+
+  public int getSectionCount() {
+    return mSectionCount;
+  }
+
+  /**
+   * @param position of an item in the adapter
+   * @return index of the section containing the item
+   */
+  public int getSectionForPosition(int position) {
+    int storedPosition = position - mPositionOffset;
+    int low = 0;
+    int high = mSectionCount - 1;
+
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (mSectionStarts[mHead + middle] <= storedPosition) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * @return position of the first item of the section
+   */
+  public int getSectionStart(int section) {
+    return mSectionStarts[mHead + section] + mPositionOffset;
+  }
+
+  /**
+   * @return position of the last item of the section
+   */
+  public int getSectionEnd(int section) {
+    return section + 1 < mSectionCount ? getSectionStart(section + 1) - 1 : mItemCount - 1;
+  }
+
+  /**
+   * @return header id shared by all the items of the section
+   */
+  public long getSectionHeaderId(int section) {
+    return mHeaderIds[mHead + section];
+  }
+
+  /**
+   * @return header id of the item at the given position, as it was when the index was built
+   */
+  public long getHeaderId(int position) {
+    return getSectionHeaderId(getSectionForPosition(position));
+  }
+
+  /**
+   * @return true if the position is the first one of its section
+   */
+  public boolean isSectionStart(int position) {
+    return getSectionStart(getSectionForPosition(position)) == position;
+  }
+
+  /**
+   * @return true if the position is the last one of its section
+   */
+  public boolean isSectionEnd(int position) {
+    return getSectionEnd(getSectionForPosition(position)) == position;
+  }
+
+  /**
+   * @return estimation of the memory retained by the index, in bytes
+   */
+  public long getEstimatedRetainedBytes() {
+    return (long) mSectionStarts.length * (4 + 8);
+  }
+
+  private void appendItems(int itemCount) {
+    int end = mItemCount + itemCount;
+
+    for (int position = mItemCount; position < end; position++) {
+      long headerId = mAdapter.getHeaderId(position);
+      if (mSectionCount == 0 || headerId != mHeaderIds[mHead + mSectionCount - 1]) {
+        if (mHead + mSectionCount == mSectionStarts.length) {
+          grow(false);
+        }
+        mSectionStarts[mHead + mSectionCount] = position - mPositionOffset;
+        mHeaderIds[mHead + mSectionCount] = headerId;
+        mSectionCount++;
+      }
+    }
+
+    mItemCount = end;
+  }
+
+  private void prependItems(int itemCount) {
+    // Moves every existing section after the new items
+    mPositionOffset += itemCount;
+
+    for (int position = itemCount - 1; position >= 0; position--) {
+      long headerId = mAdapter.getHeaderId(position);
+      if (headerId != mHeaderIds[mHead]) {
+        if (mHead == 0) {
+          grow(true);
+        }
+        mHead--;
+        mSectionCount++;
+        mHeaderIds[mHead] = headerId;
+      }
+      mSectionStarts[mHead] = position - mPositionOffset;
+    }
+
+    mItemCount += itemCount;
+  }
+
+  /**
+   * Starts building the index in the background. The current sections are dropped right away, so
+   * that nothing reads them once the adapter has changed.
+   */
+  private void buildInBackground(long[] headerIds) {
+    mHead = 0;
+    mSectionCount = 0;
+    mPositionOffset = 0;
+    mItemCount = 0;
+    mValid = false;
+    mStale = false;
+    mBuilding = true;
+    mGeneration++;
+
+    if (mMainHandler == null) {
+      mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    int chunkCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), headerIds.length / MIN_CHUNK_SIZE));
+    BackgroundBuild build = new BackgroundBuild(headerIds, chunkCount, mGeneration);
+    for (int chunk = 0; chunk < chunkCount; chunk++) {
+      mBackgroundExecutor.execute(build.getChunkTask(chunk));
+    }
+  }
+
+  /**
+   * Replaces the sections with the ones of a background build, unless the index was invalidated
+   * since the build started. Called on the UI thread.
+   */
+  private void publish(BackgroundBuild build) {
+    if (build.generation != mGeneration) {
+      return;
+    }
+
+    mSectionStarts = build.sectionStarts;
+    mHeaderIds = build.sectionHeaderIds;
+    mHead = 0;
+    mSectionCount = build.sectionCount;
+    mPositionOffset = 0;
+    mItemCount = build.headerIds.length;
+    mValid = true;
+    mBuilding = false;
+
+    if (mOnBuiltListener != null) {
+      mOnBuiltListener.onSectionIndexBuilt(this);
+    }
+  }
+
+  /**
+   * Doubles the capacity of the arrays, adding the new room before or after the sections
+   */
+  private void grow(boolean atFront) {
+    int capacity = mSectionStarts.length * 2;
+    int head = atFront ? mHead + mSectionStarts.length : mHead;
+
+    int[] sectionStarts = new int[capacity];
+    long[] headerIds = new long[capacity];
+    System.arraycopy(mSectionStarts, mHead, sectionStarts, head, mSectionCount);
+    System.arraycopy(mHeaderIds, mHead, headerIds, head, mSectionCount);
+
+    mSectionStarts = sectionStarts;
+    mHeaderIds = headerIds;
+    mHead = head;
+  }
+
+  /**
+   * Sections of a snapshot of header ids, found in chunks that may run in parallel. Each chunk
+   * keeps the positions starting a section, and the last chunk to finish merges them.
+   */
+  private class BackgroundBuild implements Runnable {
+    final long[] headerIds;
+    final int generation;
+    private final int[][] mChunkStarts;
+    private final int[] mChunkSizes;
+    private final AtomicInteger mRemainingChunks;
+
+    int[] sectionStarts;
+    long[] sectionHeaderIds;
+    int sectionCount;
+
+    BackgroundBuild(long[] headerIds, int chunkCount, int generation) {
+      this.headerIds = headerIds;
+      this.generation = generation;
+      mChunkStarts = new int[chunkCount][];
+      mChunkSizes = new int[chunkCount];
+      mRemainingChunks = new AtomicInteger(chunkCount);
+    }
+
+    Runnable getChunkTask(final int chunk) {
+      return new Runnable() {
+        @Override
+        public void run() {
+          buildChunk(chunk);
+        }
+      };
+    }
+
+    private void buildChunk(int chunk) {
+      int chunkCount = mChunkStarts.length;
+      int start = (int) ((long) headerIds.length * chunk / chunkCount);
+      int end = (int) ((long) headerIds.length * (chunk + 1) / chunkCount);
+
+      int[] starts = new int[INITIAL_CAPACITY];
+      int size = 0;
+      for (int position = start; position < end; position++) {
+        if (position == 0 || headerIds[position] != headerIds[position - 1]) {
+          if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+          }
+          starts[size++] = position;
+        }
+      }
+      mChunkStarts[chunk] = starts;
+      mChunkSizes[chunk] = size;
+
+      if (mRemainingChunks.decrementAndGet() == 0) {
+        merge();
+        mMainHandler.post(this);
+      }
+    }
+
+    private void merge() {
+      int count = 0;
+      for (int size : mChunkSizes) {
+        count += size;
+      }
+
+      int capacity = Math.max(INITIAL_CAPACITY, count);
+      sectionStarts = new int[capacity];
+      sectionHeaderIds = new long[capacity];
+      for (int chunk = 0; chunk < mChunkStarts.length; chunk++) {
+        System.arraycopy(mChunkStarts[chunk], 0, sectionStarts, sectionCount, mChunkSizes[chunk]);
+        sectionCount += mChunkSizes[chunk];
+      }
+      for (int i = 0; i < sectionCount; i++) {
+        sectionHeaderIds[i] = headerIds[sectionStarts[i]];
+      }
+    }
+
+    @Override
+    public void run() {
+      publish(this);
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package com.timehop.stickyheadersrecyclerview.caching;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.support.v4.util.LongSparseArray;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.view.View;
+
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerTextHeadersAdapter;
+import com.timehop.stickyheadersrecyclerview.rendering.HeaderDrawer;
+import com.timehop.stickyheadersrecyclerview.rendering.TextHeaderStyle;
+import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A {@link DrawnHeaderCache} for the headers of a {@link StickyRecyclerTextHeadersAdapter}. Instead
+ * of creating, binding and measuring a view tree for each header, the text of each header is laid
+ * out once into a {@link StaticLayout} kept by header id, and drawn straight to the canvas.
+ * <p>
+ * When a header is laid out, the layouts of the sections around it are prepared on a background
+ * thread from their text, so scrolling into a new section usually finds its header ready instead of
+ * laying out its text on the UI thread.
+ */
+public class TextHeaderCache extends DrawnHeaderCache {
+
+  public TextHeaderCache(StickyRecyclerTextHeadersAdapter adapter, OrientationProvider orientationProvider, SectionIndex sectionIndex, TextHeaderStyle style) {
+    super(adapter, orientationProvider, new TextHeaderDrawer(adapter, sectionIndex, style));
+  }
+
+  /**
+   * Lays out and draws the text of the headers
+   */
+  private static class TextHeaderDrawer implements HeaderDrawer {
+
+    /**
+     * Number of sections before and after a new header whose layouts are prepared in the background
+     */
+    private static final int PREFETCH_SECTIONS = 4;
+
+    /**
+     * Width of the layouts of headers that wrap their text, in horizontal lists
+     */
+    private static final int WRAP_CONTENT = -1;
+
+    private static Executor sLayoutExecutor;
+
+    private final StickyRecyclerTextHeadersAdapter mAdapter;
+    private final SectionIndex mSectionIndex;
+    private final TextHeaderStyle mStyle;
+
+    private final LongSparseArray<Layout> mLayouts = new LongSparseArray<>();
+    private final Paint mBackgroundPaint = new Paint();
+
+    /**
+     * Layouts prepared in the background, taken by the UI thread when their header is measured
+     */
+    private final ConcurrentHashMap<Long, PreparedLayout> mPreparedLayouts = new ConcurrentHashMap<>();
+
+    /**
+     * Headers whose layout is being prepared. A header measured before its layout is ready is
+     * removed, so that the background thread skips it.
+     */
+    private final ConcurrentHashMap<Long, Boolean> mRequestedLayouts = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented when headers are invalidated, so layouts prepared from an older text are dropped
+     */
+    private int mGeneration;
+
+    TextHeaderDrawer(StickyRecyclerTextHeadersAdapter adapter, SectionIndex sectionIndex, TextHeaderStyle style) {
+      mAdapter = adapter;
+      mSectionIndex = sectionIndex;
+      mStyle = style;
+    }
+
+    @Override
+    public void measureHeader(int position, long headerId, int widthMeasureSpec, int heightMeasureSpec, Rect size) {
+      Rect padding = mStyle.getPadding();
+      // Headers fill the width of vertical lists, and wrap their text in horizontal ones
+      boolean wrap = View.MeasureSpec.getMode(widthMeasureSpec) == View.MeasureSpec.UNSPECIFIED;
+      int layoutWidth = wrap ? WRAP_CONTENT : Math.max(0, View.MeasureSpec.getSize(widthMeasureSpec) - padding.left - padding.right);
+
+      Layout layout = mLayouts.get(headerId);
+      if (layout == null || (!wrap && layout.getWidth() != layoutWidth)) {
+        boolean isNew = layout == null;
+        layout = takePreparedLayout(headerId, layoutWidth);
+        if (layout == null) {
+          layout = createLayout(mAdapter.getHeaderText(position), mStyle, mStyle.getPaint(), layoutWidth);
+        }
+        mLayouts.put(headerId, layout);
+
+        if (isNew) {
+          prepareLayoutsAround(position, layoutWidth);
+        }
+      }
+
+      if (wrap) {
+        size.set(0, 0, layout.getWidth() + padding.left + padding.right, View.MeasureSpec.getSize(heightMeasureSpec));
+      } else {
+        size.set(0, 0, View.MeasureSpec.getSize(widthMeasureSpec), layout.getHeight() + padding.top + padding.bottom);
+      }
+    }
+
+    @Override
+    public void drawHeader(Canvas canvas, long headerId, int width, int height) {
+      // Nothing clips the canvas to the header, drawColor would fill the whole list
+      if (mStyle.getBackgroundColor() != Color.TRANSPARENT) {
+        mBackgroundPaint.setColor(mStyle.getBackgroundColor());
+        canvas.drawRect(0, 0, width, height, mBackgroundPaint);
+      }
+
+      Layout layout = mLayouts.get(headerId);
+      if (layout != null) {
+        Rect padding = mStyle.getPadding();
+        canvas.translate(padding.left, padding.top);
+        layout.draw(canvas);
+      }
+    }
+
+    @Override
+    public boolean isHeaderOpaque(long headerId) {
+      return Color.alpha(mStyle.getBackgroundColor()) == 255;
+    }
+
+    @Override
+    public CharSequence getHeaderDescription(long headerId) {
+      Layout layout = mLayouts.get(headerId);
+      return layout != null ? layout.getText() : null;
+    }
+
+    @Override
+    public void invalidateHeader(long headerId) {
+      mLayouts.remove(headerId);
+      dropPreparedLayouts();
+    }
+
+    @Override
+    public void invalidateHeaders() {
+      mLayouts.clear();
+      dropPreparedLayouts();
+    }
+
+    private void dropPreparedLayouts() {
+      mGeneration++;
+      mPreparedLayouts.clear();
+      mRequestedLayouts.clear();
+    }
+
+    private Layout takePreparedLayout(long headerId, int layoutWidth) {
+      mRequestedLayouts.remove(headerId);
+      PreparedLayout preparedLayout = mPreparedLayouts.remove(headerId);
+      if (preparedLayout == null || preparedLayout.generation != mGeneration || preparedLayout.width != layoutWidth) {
+        return null;
+      }
+      return preparedLayout.layout;
+    }
+
+    /**
+     * Prepares in the background the layouts of the headers of the sections around a position.
+     * Texts are read from the adapter on the UI thread, only their layout happens in the background.
+     */
+    private void prepareLayoutsAround(int position, int layoutWidth) {
+      dropUnusedPreparedLayouts();
+      mSectionIndex.ensureBuilt();
+      if (mSectionIndex.getSectionCount() == 0) {
+        return;
+      }
+
+      int section = mSectionIndex.getSectionForPosition(position);
+      int firstSection = Math.max(0, section - PREFETCH_SECTIONS);
+      int lastSection = Math.min(mSectionIndex.getSectionCount() - 1, section + PREFETCH_SECTIONS);
+
+      long[] headerIds = new long[lastSection - firstSection + 1];
+      CharSequence[] texts = new CharSequence[headerIds.length];
+      int count = 0;
+      for (int i = firstSection; i <= lastSection; i++) {
+        long headerId = mSectionIndex.getSectionHeaderId(i);
+        if (headerId < 0 || mLayouts.get(headerId) != null || mRequestedLayouts.containsKey(headerId)) {
+          continue;
+        }
+
+        mRequestedLayouts.put(headerId, Boolean.TRUE);
+        headerIds[count] = headerId;
+        texts[count] = mAdapter.getHeaderText(mSectionIndex.getSectionStart(i));
+        count++;
+      }
+
+      if (count > 0) {
+        getLayoutExecutor().execute(new PrepareLayoutsTask(headerIds, texts, count, layoutWidth, mGeneration));
+      }
+    }
+
+    /**
+     * Drops the layouts published after their header was already laid out on the UI thread, or
+     * prepared from an older text, which would otherwise never be taken
+     */
+    private void dropUnusedPreparedLayouts() {
+      Iterator<Long> headerIds = mPreparedLayouts.keySet().iterator();
+      while (headerIds.hasNext()) {
+        long headerId = headerIds.next();
+        PreparedLayout preparedLayout = mPreparedLayouts.get(headerId);
+        if (preparedLayout != null && !mRequestedLayouts.containsKey(headerId)
+            && (mLayouts.get(headerId) != null || preparedLayout.generation != mGeneration)) {
+          headerIds.remove();
+        }
+      }
+    }
+
+    private static Layout createLayout(CharSequence text, TextHeaderStyle style, TextPaint paint, int layoutWidth) {
+      int width = layoutWidth != WRAP_CONTENT ? layoutWidth : (int) Math.ceil(Layout.getDesiredWidth(text, paint));
+      return new StaticLayout(text, paint, width, style.getAlignment(), 1f, 0f, false);
+    }
+
+    private static synchronized Executor getLayoutExecutor() {
+      if (sLayoutExecutor == null) {
+        sLayoutExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "TextHeaderCache");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+          }
+        });
+      }
+      return sLayoutExecutor;
+    }
+
+    /**
+     * Lays out the text of headers on the background thread. It only touches its own copy of the
+     * paint, and publishes the layouts through {@link #mPreparedLayouts}.
+     */
+    private class PrepareLayoutsTask implements Runnable {
+      private final long[] mHeaderIds;
+      private final CharSequence[] mTexts;
+      private final int mCount;
+      private final int mLayoutWidth;
+      private final int mTaskGeneration;
+      private final TextPaint mPaint;
+
+      PrepareLayoutsTask(long[] headerIds, CharSequence[] texts, int count, int layoutWidth, int generation) {
+        mHeaderIds = headerIds;
+        mTexts = texts;
+        mCount = count;
+        mLayoutWidth = layoutWidth;
+        mTaskGeneration = generation;
+        mPaint = new TextPaint(mStyle.getPaint());
+      }
+
+      @Override
+      public void run() {
+        for (int i = 0; i < mCount; i++) {
+          // Headers measured in the meantime were laid out on the UI thread
+          if (!mRequestedLayouts.containsKey(mHeaderIds[i])) {
+            continue;
+          }
+          Layout layout = createLayout(mTexts[i], mStyle, mPaint, mLayoutWidth);
+          mPreparedLayouts.put(mHeaderIds[i], new PreparedLayout(layout, mLayoutWidth, mTaskGeneration));
+        }
+      }
+    }
+  }
+
+  private static class PreparedLayout {
+    final Layout layout;
+    final int width;
+    final int generation;
+
+    PreparedLayout(Layout layout, int width, int generation) {
+      this.layout = layout;
+      this.width = width;
+      this.generation = generation;
+    }
+  }
+}
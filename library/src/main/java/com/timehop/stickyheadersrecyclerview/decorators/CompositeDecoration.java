@@ -0,0 +1,105 @@
+package com.timehop.stickyheadersrecyclerview.decorators;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.timehop.stickyheadersrecyclerview.caching.SectionIndex;
+import com.timehop.stickyheadersrecyclerview.util.LayoutManagerOrientationProvider;
+import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several {@link DecorationPlugin}s as a single decoration. The children of the RecyclerView,
+ * their positions and sections and its orientation are resolved once per frame and shared by all
+ * the plugins, instead of every decoration walking the children on its own.
+ *
+ * <pre>
+ * CompositeDecoration decoration = new CompositeDecoration();
+ * decoration.setSectionIndex(headersDecor.getSectionIndex());
+ * decoration.addPlugin(new DividerDecoration(dividerColor, dividerHeight));
+ * decoration.addPlugin(headersDecor);
+ * recyclerView.addItemDecoration(decoration);
+ * </pre>
+ *
+ * Plugins draw in the order they were added, so headers should be added last to be drawn over the
+ * other decorations. The item offsets of all the plugins are added up.
+ */
+public class CompositeDecoration extends RecyclerView.ItemDecoration {
+
+  private final List<DecorationPlugin> mPlugins = new ArrayList<>();
+  private final DecorationFrame mFrame;
+  private final Rect mPluginOffsets = new Rect();
+
+  public CompositeDecoration() {
+    this(new LayoutManagerOrientationProvider());
+  }
+
+  public CompositeDecoration(OrientationProvider orientationProvider) {
+    mFrame = new DecorationFrame(orientationProvider, null);
+  }
+
+  /**
+   * Adds a plugin, drawn after the plugins already added
+   */
+  public CompositeDecoration addPlugin(DecorationPlugin plugin) {
+    mPlugins.add(plugin);
+    return this;
+  }
+
+  public void removePlugin(DecorationPlugin plugin) {
+    mPlugins.remove(plugin);
+  }
+
+  /**
+   * Sets the index used to resolve the sections of the children, usually the one of the
+   * {@link StickyRecyclerHeadersDecoration} plugin
+   *
+   * @param sectionIndex the index, or null to not resolve sections
+   */
+  public void setSectionIndex(SectionIndex sectionIndex) {
+    mFrame.setSectionIndex(sectionIndex);
+  }
+
+  @Override
+  public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+    super.getItemOffsets(outRect, view, parent, state);
+
+    mFrame.updateLayoutPass(parent, state);
+    int position = parent.getChildAdapterPosition(view);
+
+    for (int i = 0; i < mPlugins.size(); i++) {
+      mPluginOffsets.setEmpty();
+      mPlugins.get(i).getItemOffsets(mPluginOffsets, view, position, mFrame);
+
+      outRect.left += mPluginOffsets.left;
+      outRect.top += mPluginOffsets.top;
+      outRect.right += mPluginOffsets.right;
+      outRect.bottom += mPluginOffsets.bottom;
+    }
+  }
+
+  @Override
+  public void onDraw(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+    super.onDraw(canvas, parent, state);
+
+    // onDraw is the first pass of a frame, onDrawOver reuses what it resolved
+    mFrame.update(parent);
+
+    for (int i = 0; i < mPlugins.size(); i++) {
+      mPlugins.get(i).onDraw(canvas, mFrame);
+    }
+  }
+
+  @Override
+  public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+    super.onDrawOver(canvas, parent, state);
+
+    for (int i = 0; i < mPlugins.size(); i++) {
+      mPlugins.get(i).onDrawOver(canvas, mFrame);
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package com.timehop.stickyheadersrecyclerview.decorators;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import com.timehop.stickyheadersrecyclerview.caching.SectionIndex;
+import com.timehop.stickyheadersrecyclerview.util.LayoutInfo;
+import com.timehop.stickyheadersrecyclerview.util.LayoutInfoProvider;
+import com.timehop.stickyheadersrecyclerview.util.LayoutManagerOrientationProvider;
+import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
+
+import java.util.Arrays;
+
+/**
+ * Layout of a RecyclerView as seen by decorations during one frame: its orientation, its spans and
+ * the attached children with their layout positions and sections. Everything is resolved once by
+ * {@link #update(RecyclerView)} and then shared, and the arrays are reused from frame to frame.
+ */
+public class DecorationFrame {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final OrientationProvider mOrientationProvider;
+  private final LayoutInfoProvider mLayoutInfoProvider;
+  private SectionIndex mSectionIndex;
+
+  private RecyclerView mParent;
+  private RecyclerView.LayoutManager mLayoutManager;
+  private boolean mLayoutPassResolved;
+  private boolean mPreLayout;
+  private int mStateItemCount;
+  private LayoutInfo mLayoutInfo;
+  private int mOrientation;
+  private boolean mReverseLayout;
+  private int mSpanCount;
+  private int mViewportStart;
+  private int mViewportEnd;
+
+  private View[] mChildren = new View[INITIAL_CAPACITY];
+  private int[] mPositions = new int[INITIAL_CAPACITY];
+  private int[] mSections = new int[INITIAL_CAPACITY];
+  private int mChildCount;
+
+  private int mLastPosition = RecyclerView.NO_POSITION;
+  private int mLastSection = -1;
+
+  public DecorationFrame(OrientationProvider orientationProvider, SectionIndex sectionIndex) {
+    mOrientationProvider = orientationProvider;
+    mLayoutInfoProvider = LayoutManagerOrientationProvider.asLayoutInfoProvider(orientationProvider);
+    mSectionIndex = sectionIndex;
+  }
+
+  /**
+   * @param sectionIndex index to resolve the sections of the children with, or null to not resolve
+   *                     them
+   */
+  public void setSectionIndex(SectionIndex sectionIndex) {
+    mSectionIndex = sectionIndex;
+  }
+
+  /**
+   * Resolves the orientation and the spans of the RecyclerView, for computing item offsets
+   */
+  public void updateLayout(RecyclerView parent) {
+    mLayoutPassResolved = false;
+    mParent = parent;
+    mLayoutManager = parent.getLayoutManager();
+    mLayoutInfo = mLayoutInfoProvider.getLayoutInfo(parent);
+    mOrientation = mOrientationProvider.getOrientation(parent);
+    mReverseLayout = mOrientationProvider.isReverseLayout(parent);
+    mSpanCount = mLayoutInfo.getSpanCount();
+
+    boolean clipToPadding = parent.getLayoutManager().getClipToPadding();
+    if (mOrientation == LinearLayout.VERTICAL) {
+      mViewportStart = clipToPadding ? parent.getPaddingTop() : 0;
+      mViewportEnd = parent.getHeight() - (clipToPadding ? parent.getPaddingBottom() : 0);
+    } else {
+      mViewportStart = clipToPadding ? parent.getPaddingLeft() : 0;
+      mViewportEnd = parent.getWidth() - (clipToPadding ? parent.getPaddingRight() : 0);
+    }
+
+    mLastPosition = RecyclerView.NO_POSITION;
+
+    if (mSectionIndex != null) {
+      mSectionIndex.ensureBuilt();
+    }
+  }
+
+  /**
+   * Resolves the layout like {@link #updateLayout(RecyclerView)} for the first item of a layout pass
+   * only, for computing item offsets. The pass ends when the frame is resolved for drawing, or when
+   * the layout manager, the item count or the pre-layout step of the state changes.
+   */
+  public void updateLayoutPass(RecyclerView parent, RecyclerView.State state) {
+    if (mLayoutPassResolved && parent == mParent && parent.getLayoutManager() == mLayoutManager
+        && state.isPreLayout() == mPreLayout && state.getItemCount() == mStateItemCount
+        && (mSectionIndex == null || !mSectionIndex.isStale())) {
+      return;
+    }
+
+    updateLayout(parent);
+    mPreLayout = state.isPreLayout();
+    mStateItemCount = state.getItemCount();
+    mLayoutPassResolved = true;
+  }
+
+  /**
+   * Resolves the orientation of the RecyclerView and walks its children once, for drawing
+   */
+  public void update(RecyclerView parent) {
+    updateLayout(parent);
+
+    int childCount = parent.getChildCount();
+    if (childCount > mChildren.length) {
+      int capacity = Math.max(childCount, mChildren.length * 2);
+      mChildren = new View[capacity];
+      mPositions = new int[capacity];
+      mSections = new int[capacity];
+    }
+
+    int itemCount = mSectionIndex != null ? mSectionIndex.getItemCount() : 0;
+    for (int i = 0; i < childCount; i++) {
+      View child = parent.getChildAt(i);
+      int position = parent.getChildLayoutPosition(child);
+
+      mChildren[i] = child;
+      mPositions[i] = position;
+      mSections[i] = position >= 0 && position < itemCount ? mSectionIndex.getSectionForPosition(position) : -1;
+    }
+
+    // Don't hold on to views of a previous frame
+    if (childCount < mChildCount) {
+      Arrays.fill(mChildren, childCount, mChildCount, null);
+    }
+    mChildCount = childCount;
+  }
+
+  public RecyclerView getParent() {
+    return mParent;
+  }
+
+  /**
+   * @return the layout of the RecyclerView, see {@link LayoutInfo}
+   */
+  public LayoutInfo getLayoutInfo() {
+    return mLayoutInfo;
+  }
+
+  public int getOrientation() {
+    return mOrientation;
+  }
+
+  public boolean isReverseLayout() {
+    return mReverseLayout;
+  }
+
+  /**
+   * Tells if a child can be seen, that is if it or its decorations, like its header, are at least
+   * partly inside the list. Layout managers with extra layout space attach children that are
+   * entirely outside the list, whose headers should neither be drawn nor stick.
+   *
+   * @param index of the child in the frame
+   * @return true if the child is at least partly inside the list
+   */
+  public boolean isChildInViewport(int index) {
+    View child = mChildren[index];
+    RecyclerView.LayoutManager layoutManager = mParent.getLayoutManager();
+
+    int start;
+    int end;
+    if (mOrientation == LinearLayout.VERTICAL) {
+      int translation = (int) child.getTranslationY();
+      start = layoutManager.getDecoratedTop(child) + translation;
+      end = layoutManager.getDecoratedBottom(child) + translation;
+    } else {
+      int translation = (int) child.getTranslationX();
+      start = layoutManager.getDecoratedLeft(child) + translation;
+      end = layoutManager.getDecoratedRight(child) + translation;
+    }
+
+    return end > mViewportStart && start < mViewportEnd;
+  }
+
+  /**
+   * @return number of spans of a grid, 1 for a list
+   */
+  public int getSpanCount() {
+    return mSpanCount;
+  }
+
+  /**
+   * @return number of spans taken by the item at the position, from the span size lookup of a
+   * grid. Items of other layouts take one span.
+   */
+  public int getSpanSize(int position) {
+    return mSpanCount > 1 ? mLayoutInfo.getSpanSize(position) : 1;
+  }
+
+  /**
+   * @return span of a laid out item, read from its layout params instead of being computed by the
+   * span size lookup. Items of layouts without spans are in span 0.
+   */
+  public int getSpanIndex(View child) {
+    return mSpanCount > 1 ? mLayoutInfo.getSpanIndex(child) : 0;
+  }
+
+  /**
+   * @return true if the laid out item at the position is in the last row (or column in horizontal
+   * layouts) of the items up to the given end position, which is the case when the items after it
+   * fit in the spans left in its row. Only looks at the item and the ones of its row.
+   */
+  public boolean isInLastSpanGroup(View child, int position, int endPosition) {
+    if (position >= endPosition) {
+      return true;
+    }
+    if (mSpanCount <= 1) {
+      return false;
+    }
+
+    int remainingSpans = mSpanCount - getSpanIndex(child) - getSpanSize(position);
+    for (int next = position + 1; next <= endPosition; next++) {
+      remainingSpans -= getSpanSize(next);
+      if (remainingSpans < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the section index, or null if the frame does not resolve sections
+   */
+  public SectionIndex getSectionIndex() {
+    return mSectionIndex;
+  }
+
+  public int getChildCount() {
+    return mChildCount;
+  }
+
+  public View getChildAt(int index) {
+    return mChildren[index];
+  }
+
+  /**
+   * @return layout position of the child, or {@link RecyclerView#NO_POSITION}
+   */
+  public int getPosition(int index) {
+    return mPositions[index];
+  }
+
+  /**
+   * @return section of the child, or -1 if it has no position or sections are not resolved
+   */
+  public int getSection(int index) {
+    return mSections[index];
+  }
+
+  /**
+   * Looks a position up in the section index. The last lookup is remembered, so plugins asking
+   * for the section of the same item only search the index once.
+   *
+   * @return section of the position, or -1 if it is out of the index or sections are not resolved
+   */
+  public int getSectionForPosition(int position) {
+    if (position != mLastPosition) {
+      boolean indexed = mSectionIndex != null && position >= 0 && position < mSectionIndex.getItemCount();
+      mLastSection = indexed ? mSectionIndex.getSectionForPosition(position) : -1;
+      mLastPosition = position;
+    }
+    return mLastSection;
+  }
+}
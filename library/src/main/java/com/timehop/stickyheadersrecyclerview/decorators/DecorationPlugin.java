@@ -0,0 +1,34 @@
+package com.timehop.stickyheadersrecyclerview.decorators;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.View;
+
+/**
+ * A decoration that can be run by a {@link CompositeDecoration}, using the children, positions,
+ * orientation and sections resolved once per frame in a {@link DecorationFrame} instead of looking
+ * them up itself.
+ */
+public interface DecorationPlugin {
+
+  /**
+   * Same as {@link android.support.v7.widget.RecyclerView.ItemDecoration#getItemOffsets}. The
+   * offsets of all the plugins are added up.
+   *
+   * @param outRect  offsets of the item, all 0 when called
+   * @param view     the item
+   * @param position adapter position of the item, possibly {@link android.support.v7.widget.RecyclerView#NO_POSITION}
+   * @param frame    layout of the RecyclerView, only the parent, orientation and sections are set
+   */
+  void getItemOffsets(Rect outRect, View view, int position, DecorationFrame frame);
+
+  /**
+   * Draws under the children, see {@link android.support.v7.widget.RecyclerView.ItemDecoration#onDraw}
+   */
+  void onDraw(Canvas canvas, DecorationFrame frame);
+
+  /**
+   * Draws over the children, see {@link android.support.v7.widget.RecyclerView.ItemDecoration#onDrawOver}
+   */
+  void onDrawOver(Canvas canvas, DecorationFrame frame);
+}
@@ -0,0 +1,173 @@
+package com.timehop.stickyheadersrecyclerview.decorators;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.timehop.stickyheadersrecyclerview.caching.SectionIndex;
+import com.timehop.stickyheadersrecyclerview.util.LayoutManagerOrientationProvider;
+import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
+
+/**
+ * Draws a solid divider between items. When it knows the sections of the adapter, no divider is
+ * drawn between the last row of a section and the start of the next section, where the header of
+ * that section is drawn. The dividers of a frame are collected into a single array of lines and
+ * drawn with one call.
+ * <p>
+ * Dividers follow the item in adapter order, so they are drawn below (or right of) the items of
+ * a regular layout and above (or left of) the items of a reverse layout. In grids every item
+ * draws the divider of its own width, so a row gets one continuous divider.
+ */
+public class DividerDecoration extends RecyclerView.ItemDecoration implements DecorationPlugin {
+
+  private static final int FLOATS_PER_LINE = 4;
+
+  private final int mThickness;
+  private final Paint mPaint = new Paint();
+  private final DecorationFrame mFrame;
+
+  private float[] mLines = new float[0];
+
+  public DividerDecoration(int color, int thicknessPx) {
+    this(color, thicknessPx, new LayoutManagerOrientationProvider());
+  }
+
+  public DividerDecoration(int color, int thicknessPx, OrientationProvider orientationProvider) {
+    mThickness = thicknessPx;
+    mFrame = new DecorationFrame(orientationProvider, null);
+
+    mPaint.setColor(color);
+    mPaint.setStyle(Paint.Style.STROKE);
+    mPaint.setStrokeCap(Paint.Cap.BUTT);
+    mPaint.setStrokeWidth(thicknessPx);
+  }
+
+  /**
+   * Makes the dividers follow the sections of a {@link StickyRecyclerHeadersDecoration}. Inside a
+   * {@link CompositeDecoration} the sections of the composite are used instead.
+   *
+   * @param headersDecoration decoration drawing the headers of the same RecyclerView
+   */
+  public void setSections(StickyRecyclerHeadersDecoration headersDecoration) {
+    mFrame.setSectionIndex(headersDecoration.getSectionIndex());
+  }
+
+  @Override
+  public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+    super.getItemOffsets(outRect, view, parent, state);
+
+    mFrame.updateLayoutPass(parent, state);
+    getItemOffsets(outRect, view, parent.getChildAdapterPosition(view), mFrame);
+  }
+
+  @Override
+  public void getItemOffsets(Rect outRect, View view, int position, DecorationFrame frame) {
+    if (!hasDivider(frame, view, position, frame.getSectionForPosition(position))) {
+      return;
+    }
+
+    boolean reverse = frame.isReverseLayout();
+    if (frame.getOrientation() == LinearLayoutManager.VERTICAL) {
+      if (reverse) {
+        outRect.top = mThickness;
+      } else {
+        outRect.bottom = mThickness;
+      }
+    } else {
+      if (reverse) {
+        outRect.left = mThickness;
+      } else {
+        outRect.right = mThickness;
+      }
+    }
+  }
+
+  @Override
+  public void onDraw(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+    super.onDraw(canvas, parent, state);
+
+    mFrame.update(parent);
+    onDraw(canvas, mFrame);
+  }
+
+  @Override
+  public void onDraw(Canvas canvas, DecorationFrame frame) {
+    int childCount = frame.getChildCount();
+    if (childCount == 0 || mThickness <= 0) {
+      return;
+    }
+
+    if (mLines.length < childCount * FLOATS_PER_LINE) {
+      mLines = new float[childCount * FLOATS_PER_LINE];
+    }
+
+    boolean vertical = frame.getOrientation() == LinearLayoutManager.VERTICAL;
+    // The divider is centered on the stroke, in the middle of the offset of the item
+    float halfThickness = frame.isReverseLayout() ? -mThickness / 2f : mThickness / 2f;
+    int count = 0;
+
+    for (int i = 0; i < childCount; i++) {
+      View child = frame.getChildAt(i);
+      if (!hasDivider(frame, child, frame.getPosition(i), frame.getSection(i))) {
+        continue;
+      }
+
+      RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) child.getLayoutParams();
+      float translationX = child.getTranslationX();
+      float translationY = child.getTranslationY();
+
+      if (vertical) {
+        float edge = frame.isReverseLayout() ? child.getTop() - params.topMargin : child.getBottom() + params.bottomMargin;
+        float y = edge + translationY + halfThickness;
+        mLines[count++] = child.getLeft() - params.leftMargin + translationX;
+        mLines[count++] = y;
+        mLines[count++] = child.getRight() + params.rightMargin + translationX;
+        mLines[count++] = y;
+      } else {
+        float edge = frame.isReverseLayout() ? child.getLeft() - params.leftMargin : child.getRight() + params.rightMargin;
+        float x = edge + translationX + halfThickness;
+        mLines[count++] = x;
+        mLines[count++] = child.getTop() - params.topMargin + translationY;
+        mLines[count++] = x;
+        mLines[count++] = child.getBottom() + params.bottomMargin + translationY;
+      }
+    }
+
+    if (count > 0) {
+      canvas.drawLines(mLines, 0, count, mPaint);
+    }
+  }
+
+  @Override
+  public void onDrawOver(Canvas canvas, DecorationFrame frame) {
+    // do nothing
+  }
+
+  /**
+   * @return false if the item is in the last row of a section and a header is drawn right after that
+   * row, in which case the header stands in for a divider
+   */
+  private boolean hasDivider(DecorationFrame frame, View child, int position, int section) {
+    if (position == RecyclerView.NO_POSITION) {
+      return false;
+    }
+
+    SectionIndex sectionIndex = frame.getSectionIndex();
+    if (sectionIndex == null || section < 0) {
+      return true;
+    }
+
+    // Headers sit above the end of their section in reverse layouts, so the header after the last
+    // row of a section is its own, even for the last section
+    boolean reverse = frame.isReverseLayout();
+    if (!reverse && section + 1 >= sectionIndex.getSectionCount()) {
+      return true;
+    }
+    int headerSection = reverse ? section : section + 1;
+    return sectionIndex.getSectionHeaderId(headerSection) < 0
+        || !frame.isInLastSpanGroup(child, position, sectionIndex.getSectionEnd(section));
+  }
+}
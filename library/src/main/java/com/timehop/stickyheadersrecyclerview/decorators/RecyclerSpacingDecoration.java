@@ -1,6 +1,7 @@
 package com.timehop.stickyheadersrecyclerview.decorators;
 
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.support.annotation.DimenRes;
 import android.support.v7.widget.GridLayoutManager;
@@ -10,10 +11,15 @@ import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.view.View;
 
+import com.timehop.stickyheadersrecyclerview.caching.SectionIndex;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
 /**
  * Created by Rafael Baboni Dominiquini on 30/06/16.
  */
-public class RecyclerSpacingDecoration extends RecyclerView.ItemDecoration {
+public class RecyclerSpacingDecoration extends RecyclerView.ItemDecoration implements DecorationPlugin {
 
   private int orientation = -1;
   private int spanCount = -1;
@@ -21,6 +27,24 @@ public class RecyclerSpacingDecoration extends RecyclerView.ItemDecoration {
   private int fullSpacing;
   private int halfSpacing;
 
+  private SectionIndex sectionIndex;
+  private int sectionSpacing;
+  private int headerSpacing;
+
+  private RecyclerView.LayoutManager layoutManager;
+  private GridLayoutManager.SpanSizeLookup spanSizeLookup;
+  private RecyclerView.Adapter adapter;
+
+  /**
+   * Span index and span group (row or column) of the first {@link #spanLayoutSize} positions,
+   * extended on demand and cut back from the first position an adapter change touches
+   */
+  private int[] spanIndices = new int[0];
+  private int[] spanGroups = new int[0];
+  private int spanLayoutSize;
+
+  private SpanLayoutObserver spanLayoutObserver;
+
   public RecyclerSpacingDecoration(Context context, @DimenRes int spacingDimen) {
 
     this(context.getResources().getDimensionPixelSize(spacingDimen));
@@ -32,30 +56,200 @@ public class RecyclerSpacingDecoration extends RecyclerView.ItemDecoration {
     halfSpacing = spacingPx / 2;
   }
 
+  /**
+   * Makes the spacing follow the sections of a {@link StickyRecyclerHeadersDecoration}. Section
+   * boundaries are read from the section index of that decoration, so no header id is queried.
+   *
+   * @param headersDecoration decoration drawing the headers of the same RecyclerView
+   * @param sectionSpacingPx  space after the last row of a section, before the next section
+   * @param headerSpacingPx   space before the first row of a section with a header, which is where
+   *                          the header is drawn
+   */
+  public void setSectionSpacing(StickyRecyclerHeadersDecoration headersDecoration, int sectionSpacingPx, int headerSpacingPx) {
+
+    sectionIndex = headersDecoration.getSectionIndex();
+    sectionSpacing = sectionSpacingPx;
+    headerSpacing = headerSpacingPx;
+  }
+
   @Override
   public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
 
     super.getItemOffsets(outRect, view, parent, state);
 
-    if (orientation == -1) {
-      orientation = getOrientation(parent);
-    }
+    updateLayoutState(parent, getOrientation(parent));
+    setItemOffsets(outRect, parent, parent.getChildAdapterPosition(view));
+  }
 
-    if (spanCount == -1) {
-      spanCount = getTotalSpan(parent);
-    }
+  @Override
+  public void getItemOffsets(Rect outRect, View view, int position, DecorationFrame frame) {
+
+    updateLayoutState(frame.getParent(), frame.getOrientation());
+    setItemOffsets(outRect, frame.getParent(), position);
+  }
+
+  @Override
+  public void onDraw(Canvas canvas, DecorationFrame frame) {
+
+    // do nothing
+  }
+
+  @Override
+  public void onDrawOver(Canvas canvas, DecorationFrame frame) {
+
+    // do nothing
+  }
+
+  private void setItemOffsets(Rect outRect, RecyclerView parent, int childIndex) {
 
     int childCount = parent.getLayoutManager().getItemCount();
-    int childIndex = parent.getChildAdapterPosition(view);
 
-    int itemSpanSize = getItemSpanSize(parent, childIndex);
-    int spanIndex = getItemSpanIndex(parent, childIndex);
+    if (childIndex == RecyclerView.NO_POSITION || childIndex >= childCount) {
+      return;
+    }
 
     if (spanCount > 0) {
+      int itemSpanSize = getItemSpanSize(parent, childIndex);
+      int spanIndex = getCachedSpanIndex(parent, childIndex);
+
       setSpacings(outRect, parent, childCount, childIndex, itemSpanSize, spanIndex);
+
+      if (sectionIndex != null) {
+        setSectionSpacings(outRect, parent, childIndex);
+      }
+    }
+  }
+
+  /**
+   * Replaces the leading spacing of the first row of a section with a header, and the trailing
+   * spacing of the last row of every section but the last one
+   */
+  protected void setSectionSpacings(Rect outRect, RecyclerView parent, int childIndex) {
+
+    sectionIndex.ensureBuilt();
+    if (childIndex >= sectionIndex.getItemCount()) {
+      return;
+    }
+
+    int section = sectionIndex.getSectionForPosition(childIndex);
+    int spanGroup = getCachedSpanGroupIndex(parent, childIndex);
+
+    boolean isFirstRowAfterHeader = section > 0
+        && sectionIndex.getSectionHeaderId(section) >= 0
+        && spanGroup == getCachedSpanGroupIndex(parent, sectionIndex.getSectionStart(section));
+    boolean isLastRowOfSection = section < sectionIndex.getSectionCount() - 1
+        && spanGroup == getCachedSpanGroupIndex(parent, sectionIndex.getSectionEnd(section));
+
+    if (orientation == OrientationHelper.VERTICAL) {
+      if (isFirstRowAfterHeader) {
+        outRect.top = headerSpacing;
+      }
+      if (isLastRowOfSection) {
+        outRect.bottom = sectionSpacing;
+      }
+    } else {
+      if (isFirstRowAfterHeader) {
+        outRect.left = headerSpacing;
+      }
+      if (isLastRowOfSection) {
+        outRect.right = sectionSpacing;
+      }
+    }
+  }
+
+  /**
+   * Reads the span count of the current layout manager, and drops the cached span layout when the
+   * layout manager or its spans changed. Also follows the adapter of the RecyclerView to drop the
+   * cached span layout of the positions that change.
+   */
+  private void updateLayoutState(RecyclerView parent, int parentOrientation) {
+
+    RecyclerView.LayoutManager mgr = parent.getLayoutManager();
+    GridLayoutManager.SpanSizeLookup lookup = mgr instanceof GridLayoutManager ? ((GridLayoutManager) mgr).getSpanSizeLookup() : null;
+    int totalSpan = getTotalSpan(parent);
+
+    if (mgr != layoutManager || lookup != spanSizeLookup || totalSpan != spanCount) {
+      layoutManager = mgr;
+      spanSizeLookup = lookup;
+      spanCount = totalSpan;
+      invalidateSpanLayout(0);
+    }
+
+    orientation = parentOrientation;
+
+    RecyclerView.Adapter parentAdapter = parent.getAdapter();
+    if (parentAdapter != adapter) {
+      if (spanLayoutObserver != null) {
+        adapter.unregisterAdapterDataObserver(spanLayoutObserver);
+        spanLayoutObserver = null;
+      }
+      if (parentAdapter != null) {
+        spanLayoutObserver = new SpanLayoutObserver(this, parentAdapter);
+        parentAdapter.registerAdapterDataObserver(spanLayoutObserver);
+      }
+      adapter = parentAdapter;
+      invalidateSpanLayout(0);
     }
   }
 
+  private void invalidateSpanLayout(int fromPosition) {
+
+    spanLayoutSize = Math.max(0, Math.min(spanLayoutSize, fromPosition));
+  }
+
+  /**
+   * @return span index of the item, packing items in spans the same way GridLayoutManager does
+   */
+  protected int getCachedSpanIndex(RecyclerView parent, int childIndex) {
+
+    extendSpanLayout(parent, childIndex);
+    return spanIndices[childIndex];
+  }
+
+  /**
+   * @return index of the row (or column in horizontal layouts) the item is in
+   */
+  protected int getCachedSpanGroupIndex(RecyclerView parent, int childIndex) {
+
+    extendSpanLayout(parent, childIndex);
+    return spanGroups[childIndex];
+  }
+
+  private void extendSpanLayout(RecyclerView parent, int position) {
+
+    if (position < spanLayoutSize) {
+      return;
+    }
+
+    if (position >= spanIndices.length) {
+      int capacity = Math.max(position + 1, spanIndices.length * 2);
+      spanIndices = Arrays.copyOf(spanIndices, capacity);
+      spanGroups = Arrays.copyOf(spanGroups, capacity);
+    }
+
+    int spanIndex = 0;
+    int spanGroup = 0;
+    if (spanLayoutSize > 0) {
+      int last = spanLayoutSize - 1;
+      spanIndex = spanIndices[last] + Math.min(getItemSpanSize(parent, last), spanCount);
+      spanGroup = spanGroups[last];
+    }
+
+    for (int i = spanLayoutSize; i <= position; i++) {
+      int spanSize = Math.min(getItemSpanSize(parent, i), spanCount);
+      if (spanIndex + spanSize > spanCount) {
+        spanIndex = 0;
+        spanGroup++;
+      }
+
+      spanIndices[i] = spanIndex;
+      spanGroups[i] = spanGroup;
+      spanIndex += spanSize;
+    }
+
+    spanLayoutSize = position + 1;
+  }
+
   protected void setSpacings(Rect outRect, RecyclerView parent, int childCount, int childIndex, int itemSpanSize, int spanIndex) {
 
     outRect.top = 0;
@@ -174,27 +368,69 @@ public class RecyclerSpacingDecoration extends RecyclerView.ItemDecoration {
 
   protected boolean isFirstItemEdgeValid(boolean isOneOfFirstItems, RecyclerView parent, int childIndex) {
 
-    int totalSpanArea = 0;
+    return isOneOfFirstItems && getCachedSpanGroupIndex(parent, childIndex) == 0;
+  }
 
-    if (isOneOfFirstItems) {
-      for (int i = childIndex; i >= 0; i--) {
-        totalSpanArea = totalSpanArea + getItemSpanSize(parent, i);
-      }
-    }
+  protected boolean isLastItemEdgeValid(boolean isOneOfLastItems, RecyclerView parent, int childCount, int childIndex, int spanIndex) {
 
-    return isOneOfFirstItems && totalSpanArea <= spanCount;
+    return isOneOfLastItems && getCachedSpanGroupIndex(parent, childIndex) == getCachedSpanGroupIndex(parent, childCount - 1);
   }
 
-  protected boolean isLastItemEdgeValid(boolean isOneOfLastItems, RecyclerView parent, int childCount, int childIndex, int spanIndex) {
+  /**
+   * Drops the cached span layout of the positions that change. Holds the decoration weakly, as
+   * decorations are not told when they are removed from their RecyclerView, so that the adapter
+   * does not keep a removed decoration alive.
+   */
+  private static class SpanLayoutObserver extends RecyclerView.AdapterDataObserver {
 
-    int totalSpanRemaining = 0;
+    private final WeakReference<RecyclerSpacingDecoration> decoration;
+    private final RecyclerView.Adapter adapter;
 
-    if (isOneOfLastItems) {
-      for (int i = childIndex; i < childCount; i++) {
-        totalSpanRemaining = totalSpanRemaining + getItemSpanSize(parent, i);
-      }
+    SpanLayoutObserver(RecyclerSpacingDecoration decoration, RecyclerView.Adapter adapter) {
+
+      this.decoration = new WeakReference<>(decoration);
+      this.adapter = adapter;
+    }
+
+    @Override
+    public void onChanged() {
+
+      invalidateSpanLayout(0);
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+
+      invalidateSpanLayout(positionStart);
     }
 
-    return isOneOfLastItems && (totalSpanRemaining <= spanCount - spanIndex);
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+
+      invalidateSpanLayout(positionStart);
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+
+      invalidateSpanLayout(positionStart);
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+
+      invalidateSpanLayout(Math.min(fromPosition, toPosition));
+    }
+
+    private void invalidateSpanLayout(int fromPosition) {
+
+      RecyclerSpacingDecoration spacingDecoration = decoration.get();
+      if (spacingDecoration != null) {
+        spacingDecoration.invalidateSpanLayout(fromPosition);
+      } else {
+        // Observers are notified from the last one, so this does not skip any of them
+        adapter.unregisterAdapterDataObserver(this);
+      }
+    }
   }
-}
\ No newline at end of file
+}
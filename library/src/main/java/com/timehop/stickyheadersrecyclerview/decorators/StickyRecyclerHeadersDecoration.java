@@ -1,24 +1,48 @@
 package com.timehop.stickyheadersrecyclerview.decorators;
 
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
 import android.graphics.Canvas;
 import android.graphics.Rect;
+import android.os.Build;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.SparseArray;
 import android.view.View;
 
+import com.timehop.stickyheadersrecyclerview.FooterPositionCalculator;
 import com.timehop.stickyheadersrecyclerview.HeaderPositionCalculator;
 import com.timehop.stickyheadersrecyclerview.ItemVisibilityAdapter;
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerFootersAdapter;
 import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
 import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersPositionChangeListener;
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerTextHeadersAdapter;
+import com.timehop.stickyheadersrecyclerview.caching.DrawnHeaderCache;
+import com.timehop.stickyheadersrecyclerview.caching.FooterViewCache;
+import com.timehop.stickyheadersrecyclerview.caching.HeaderDiffReconciler;
 import com.timehop.stickyheadersrecyclerview.caching.HeaderProvider;
 import com.timehop.stickyheadersrecyclerview.caching.HeaderViewCache;
+import com.timehop.stickyheadersrecyclerview.caching.HeaderViewPool;
+import com.timehop.stickyheadersrecyclerview.caching.SectionIndex;
+import com.timehop.stickyheadersrecyclerview.caching.TextHeaderCache;
 import com.timehop.stickyheadersrecyclerview.calculation.DimensionCalculator;
+import com.timehop.stickyheadersrecyclerview.rendering.FrameBudget;
+import com.timehop.stickyheadersrecyclerview.rendering.HeaderDrawer;
 import com.timehop.stickyheadersrecyclerview.rendering.HeaderRenderer;
+import com.timehop.stickyheadersrecyclerview.rendering.HeaderTransform;
+import com.timehop.stickyheadersrecyclerview.rendering.StickyHeaderStrategies;
+import com.timehop.stickyheadersrecyclerview.rendering.StickyHeaderStrategy;
+import com.timehop.stickyheadersrecyclerview.rendering.TextHeaderStyle;
+import com.timehop.stickyheadersrecyclerview.util.LayoutInfo;
 import com.timehop.stickyheadersrecyclerview.util.LayoutManagerOrientationProvider;
 import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
 
-public class StickyRecyclerHeadersDecoration extends RecyclerView.ItemDecoration {
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
+
+public class StickyRecyclerHeadersDecoration extends RecyclerView.ItemDecoration implements DecorationPlugin {
 
   private final StickyRecyclerHeadersAdapter mAdapter;
   private final HeaderProvider mHeaderProvider;
@@ -26,12 +50,55 @@ public class StickyRecyclerHeadersDecoration extends RecyclerView.ItemDecoration
   private final HeaderPositionCalculator mHeaderPositionCalculator;
   private final HeaderRenderer mRenderer;
   private final DimensionCalculator mDimensionCalculator;
+  private final SectionIndex mSectionIndex;
+  private final HeaderDiffReconciler mDiffReconciler;
   private final boolean mEnableStickyHeader;
 
+  /**
+   * Only set if the adapter is a {@link StickyRecyclerFootersAdapter}
+   */
+  private final HeaderProvider mFooterProvider;
+  private final FooterPositionCalculator mFooterPositionCalculator;
+
   private ItemVisibilityAdapter mVisibilityAdapter;
   private StickyRecyclerHeadersPositionChangeListener mHeaderListener;
+  private StickyHeaderStrategy mStickyHeaderStrategy = StickyHeaderStrategies.PUSH;
+  private boolean mUseLayoutAnchors;
+  private FrameBudget mFrameBudget;
+
+  /**
+   * True while the frame budget is exceeded, for the frame being drawn
+   */
+  private boolean mOverBudget;
+
+  /**
+   * Whether item offsets were computed since headers were last recycled
+   */
+  private boolean mLaidOutSinceRecycle;
+
+  /**
+   * RecyclerView of the last frame drawn, invalidated when a section index built in the background
+   * is published
+   */
+  private RecyclerView mLastParent;
+
+  /**
+   * Adapter of the RecyclerView whose changes are routed to the section index
+   */
+  private RecyclerView.Adapter mObservedAdapter;
+  private AdapterObserver mAdapterObserver;
+
+  /**
+   * Created on demand, as {@link ComponentCallbacks2} only exists from API 14
+   */
+  private ComponentCallbacks2 mComponentCallbacks;
+  private RecyclerView mObservedParent;
 
   private final SparseArray<Rect> mHeaderRects = new SparseArray<>();
+  private final SparseArray<View> mDrawnHeaders = new SparseArray<>();
+  private final DecorationFrame mFrame;
+  private final HeaderTransform mTransform = new HeaderTransform();
+  private final Rect mFooterBounds = new Rect();
 
   public StickyRecyclerHeadersDecoration(StickyRecyclerHeadersAdapter adapter) {
     this(adapter, new LayoutManagerOrientationProvider(), new DimensionCalculator(), true);
@@ -41,35 +108,90 @@ public class StickyRecyclerHeadersDecoration extends RecyclerView.ItemDecoration
     this(adapter, new LayoutManagerOrientationProvider(), new DimensionCalculator(), enableStickyHeader);
   }
 
+  /**
+   * Draws the headers of the adapter as text laid out with the given style, without header views
+   */
+  public StickyRecyclerHeadersDecoration(StickyRecyclerTextHeadersAdapter adapter, TextHeaderStyle style) {
+    this(adapter, new LayoutManagerOrientationProvider(), style, new SectionIndex(adapter));
+  }
+
+  /**
+   * Draws the headers of the adapter with the given drawer, without header views
+   */
+  public StickyRecyclerHeadersDecoration(StickyRecyclerHeadersAdapter adapter, HeaderDrawer headerDrawer) {
+    this(adapter, new LayoutManagerOrientationProvider(), headerDrawer);
+  }
+
+  private StickyRecyclerHeadersDecoration(StickyRecyclerHeadersAdapter adapter, OrientationProvider orientationProvider, HeaderDrawer headerDrawer) {
+    this(adapter, orientationProvider, new DimensionCalculator(), new HeaderRenderer(orientationProvider), new DrawnHeaderCache(adapter, orientationProvider, headerDrawer), true);
+  }
+
+  private StickyRecyclerHeadersDecoration(StickyRecyclerTextHeadersAdapter adapter, OrientationProvider orientationProvider, TextHeaderStyle style, SectionIndex sectionIndex) {
+    this(adapter, orientationProvider, new DimensionCalculator(), new HeaderRenderer(orientationProvider), new TextHeaderCache(adapter, orientationProvider, sectionIndex, style), sectionIndex, true);
+  }
+
   private StickyRecyclerHeadersDecoration(StickyRecyclerHeadersAdapter adapter, OrientationProvider orientationProvider, DimensionCalculator dimensionCalculator, boolean enableStickyHeader) {
     this(adapter, orientationProvider, dimensionCalculator, new HeaderRenderer(orientationProvider), new HeaderViewCache(adapter, orientationProvider), enableStickyHeader);
   }
 
   private StickyRecyclerHeadersDecoration(StickyRecyclerHeadersAdapter adapter, OrientationProvider orientationProvider, DimensionCalculator dimensionCalculator, HeaderRenderer headerRenderer, HeaderProvider headerProvider, boolean enableStickyHeader) {
-    this(adapter, headerRenderer, orientationProvider, dimensionCalculator, headerProvider, new HeaderPositionCalculator(adapter, headerProvider, orientationProvider, dimensionCalculator), enableStickyHeader);
+    this(adapter, orientationProvider, dimensionCalculator, headerRenderer, headerProvider, new SectionIndex(adapter), enableStickyHeader);
   }
 
-  private StickyRecyclerHeadersDecoration(StickyRecyclerHeadersAdapter adapter, HeaderRenderer headerRenderer, OrientationProvider orientationProvider, DimensionCalculator dimensionCalculator, HeaderProvider headerProvider, HeaderPositionCalculator headerPositionCalculator, boolean enableStickyHeader) {
+  private StickyRecyclerHeadersDecoration(StickyRecyclerHeadersAdapter adapter, OrientationProvider orientationProvider, DimensionCalculator dimensionCalculator, HeaderRenderer headerRenderer, HeaderProvider headerProvider, SectionIndex sectionIndex, boolean enableStickyHeader) {
+    this(adapter, headerRenderer, orientationProvider, dimensionCalculator, headerProvider, sectionIndex, new HeaderPositionCalculator(adapter, headerProvider, orientationProvider, dimensionCalculator, sectionIndex), enableStickyHeader);
+  }
+
+  private StickyRecyclerHeadersDecoration(StickyRecyclerHeadersAdapter adapter, HeaderRenderer headerRenderer, OrientationProvider orientationProvider, DimensionCalculator dimensionCalculator, HeaderProvider headerProvider, SectionIndex sectionIndex, HeaderPositionCalculator headerPositionCalculator, boolean enableStickyHeader) {
     mAdapter = adapter;
     mHeaderProvider = headerProvider;
     mOrientationProvider = orientationProvider;
     mRenderer = headerRenderer;
     mDimensionCalculator = dimensionCalculator;
+    mSectionIndex = sectionIndex;
+    mDiffReconciler = new HeaderDiffReconciler(adapter, sectionIndex, headerProvider);
     mHeaderPositionCalculator = headerPositionCalculator;
     mEnableStickyHeader = enableStickyHeader;
+    mFrame = new DecorationFrame(orientationProvider, sectionIndex);
+
+    if (adapter instanceof StickyRecyclerFootersAdapter) {
+      mFooterProvider = new FooterViewCache((StickyRecyclerFootersAdapter) adapter, orientationProvider);
+      mFooterPositionCalculator = new FooterPositionCalculator(adapter, mFooterProvider, orientationProvider, dimensionCalculator, sectionIndex);
+    } else {
+      mFooterProvider = null;
+      mFooterPositionCalculator = null;
+    }
   }
 
   @Override
   public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
     super.getItemOffsets(outRect, view, parent, state);
-    int itemPosition = parent.getChildAdapterPosition(view);
 
-    if (itemPosition != RecyclerView.NO_POSITION) {
-      boolean hasNewHeader = mHeaderPositionCalculator.hasNewHeader(itemPosition, mOrientationProvider.isReverseLayout(parent));
+    mFrame.updateLayoutPass(parent, state);
+    getItemOffsets(outRect, view, parent.getChildAdapterPosition(view), mFrame);
+  }
+
+  @Override
+  public void getItemOffsets(Rect outRect, View view, int position, DecorationFrame frame) {
+    observeAdapter(frame.getParent());
+    mLaidOutSinceRecycle = true;
+
+    if (position != RecyclerView.NO_POSITION) {
+      boolean hasNewHeader = mHeaderPositionCalculator.hasNewHeader(position, frame.isReverseLayout());
 
       if (hasNewHeader) {
-        View header = getHeaderView(parent, itemPosition);
-        setItemOffsetsForHeader(outRect, header, mOrientationProvider.getOrientation(parent));
+        View header = getHeaderView(frame.getParent(), position);
+        setItemOffsetsForHeader(outRect, header, frame.getOrientation());
+      }
+
+      if (mFooterPositionCalculator != null && mFooterPositionCalculator.hasNewFooter(position, frame.isReverseLayout())) {
+        View footer = mFooterProvider.getHeader(frame.getParent(), position);
+        int footerSize = mFooterPositionCalculator.getFooterSize(footer, frame.getOrientation());
+        if (frame.getOrientation() == LinearLayoutManager.VERTICAL) {
+          outRect.bottom = footerSize;
+        } else {
+          outRect.right = footerSize;
+        }
       }
     }
   }
@@ -94,36 +216,320 @@ public class StickyRecyclerHeadersDecoration extends RecyclerView.ItemDecoration
   public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
     super.onDrawOver(canvas, parent, state);
 
+    // Anchored drawing does not need the children of the frame, once the section index is ready
+    if (mUseLayoutAnchors && isSectionIndexReady()) {
+      mFrame.updateLayout(parent);
+    } else {
+      mFrame.update(parent);
+    }
+    onDrawOver(canvas, mFrame);
+  }
+
+  @Override
+  public void onDraw(Canvas canvas, DecorationFrame frame) {
+    // do nothing
+  }
+
+  @Override
+  public void onDrawOver(Canvas canvas, DecorationFrame frame) {
+    mLastParent = frame.getParent();
+    observeAdapter(mLastParent);
+
+    if (mFrameBudget != null) {
+      mFrameBudget.beginFrame();
+    }
+
+    mOverBudget = mFrameBudget != null && mFrameBudget.isExceeded();
+    mRenderer.setUseSnapshots(mOverBudget);
+    if (!mOverBudget) {
+      // Snapshots go stale as headers change, they only live while over budget
+      mRenderer.clearSnapshots();
+    }
+
+    // Headers are queued and drawn at the end, leaving out the ones covered by an opaque header
+    mRenderer.beginFrame();
+    drawHeadersAndFooters(canvas, frame);
+    mRenderer.endFrame(frame.getParent(), canvas);
+
+    if (mFrameBudget != null) {
+      mFrameBudget.endFrame();
+    }
+  }
+
+  private void drawHeadersAndFooters(Canvas canvas, DecorationFrame frame) {
     mHeaderRects.clear();
+    mDrawnHeaders.clear();
+
+    if (mUseLayoutAnchors && isSectionIndexReady()) {
+      drawAnchoredHeaders(canvas, frame);
+      recycleUnusedHeaders();
+      return;
+    }
 
-    final int childCount = parent.getChildCount();
+    final int childCount = frame.getChildCount();
     if (childCount <= 0 || mAdapter.getItemCount() <= 0) {
+      recycleUnusedHeaders();
       return;
     }
 
+    RecyclerView parent = frame.getParent();
+    int orientation = frame.getOrientation();
+    boolean reverseLayout = frame.isReverseLayout();
+
+    int stickyFooterChild = mFooterPositionCalculator != null ? findStickyFooterChild(frame) : -1;
+    int stickyFooterSection = stickyFooterChild != -1 ? frame.getSection(stickyFooterChild) : -1;
+    int stickyPosition = findStickyPosition(frame);
+
     for (int i = 0; i < childCount; i++) {
-      View itemView = parent.getChildAt(i);
+      View itemView = frame.getChildAt(i);
+      int position = frame.getPosition(i);
 
-      int position = parent.getChildLayoutPosition(itemView);
+      // Children attached outside the list, for extra layout space, are skipped before any work
+      if (position == RecyclerView.NO_POSITION || !frame.isChildInViewport(i)) {
+        continue;
+      }
 
       int columnOfItem = position % (mAdapter.getNumColumns() - mAdapter.getSpanSize(position) + 1);
-      if (position != RecyclerView.NO_POSITION && columnOfItem == 0) {
-        boolean hasStickyHeader = mHeaderPositionCalculator.hasStickyHeader(itemView, mOrientationProvider.getOrientation(parent), position);
-        boolean hasNewHeader = mHeaderPositionCalculator.hasNewHeader(position, mOrientationProvider.isReverseLayout(parent));
+      if (columnOfItem == 0) {
+        boolean hasStickyHeader = position == stickyPosition
+            && mHeaderPositionCalculator.hasStickyHeader(itemView, orientation, position);
+        boolean hasNewHeader = mHeaderPositionCalculator.hasNewHeader(position, reverseLayout);
 
         if (hasStickyHeader || hasNewHeader) {
-          View header = mHeaderProvider.getHeader(parent, position);
+          drawHeader(canvas, parent, itemView, position, hasStickyHeader);
+        }
 
-          Rect headerOffset = mHeaderPositionCalculator.getHeaderBounds(parent, header, itemView, hasStickyHeader, mEnableStickyHeader);
-          mRenderer.drawHeader(parent, canvas, header, headerOffset);
+        // The footer of the sticky section is drawn once, after the loop
+        if (mFooterPositionCalculator != null && frame.getSection(i) != stickyFooterSection
+            && mFooterPositionCalculator.hasNewFooter(position, reverseLayout)) {
+          drawFooter(canvas, parent, itemView, position);
+        }
+      }
+    }
 
-          mHeaderRects.put(position, headerOffset);
+    if (stickyFooterChild != -1) {
+      drawStickyFooter(canvas, parent, frame.getChildAt(stickyFooterChild), frame.getPosition(stickyFooterChild), stickyFooterSection, reverseLayout);
+    }
 
-          if (mEnableStickyHeader && mHeaderListener != null) {
-            mHeaderListener.onHeaderPositionChanged(this, mAdapter.getHeaderId(position), header, position, headerOffset);
-          }
+    recycleUnusedHeaders();
+  }
+
+  /**
+   * Draws the headers and footers of the sections on screen without walking the children: the
+   * items at the edges of the list are asked to the layout manager, and the items that start and
+   * end the sections in between are found with the section index. Only a few children per section
+   * on screen are looked at, however many are attached.
+   */
+  private void drawAnchoredHeaders(Canvas canvas, DecorationFrame frame) {
+    RecyclerView parent = frame.getParent();
+    RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+    LayoutInfo layoutInfo = frame.getLayoutInfo();
+    boolean reverseLayout = frame.isReverseLayout();
+
+    mSectionIndex.ensureBuilt();
+    int startPosition = layoutInfo.findStartAnchorPosition();
+    int endPosition = layoutInfo.findEndAnchorPosition();
+    if (startPosition == RecyclerView.NO_POSITION || endPosition == RecyclerView.NO_POSITION
+        || mAdapter.getItemCount() <= 0 || Math.max(startPosition, endPosition) >= mSectionIndex.getItemCount()) {
+      return;
+    }
+
+    int firstSection = mSectionIndex.getSectionForPosition(Math.min(startPosition, endPosition));
+    int lastSection = mSectionIndex.getSectionForPosition(Math.max(startPosition, endPosition));
+
+    int stickyPosition = findStickyPosition(frame);
+    View stickyView = layoutManager.findViewByPosition(stickyPosition);
+    boolean hasStickyHeader = stickyView != null && mHeaderPositionCalculator.hasStickyHeader(stickyView, frame.getOrientation(), stickyPosition);
+    if (hasStickyHeader) {
+      drawHeader(canvas, parent, stickyView, stickyPosition, true);
+    }
+
+    View stickyFooterView = mFooterPositionCalculator != null ? layoutManager.findViewByPosition(endPosition) : null;
+    int stickyFooterSection = stickyFooterView != null && mFooterPositionCalculator.hasStickyFooter(parent, stickyFooterView, frame.getOrientation(), endPosition)
+        ? mSectionIndex.getSectionForPosition(endPosition) : -1;
+
+    for (int section = firstSection; section <= lastSection; section++) {
+      if (mSectionIndex.getSectionHeaderId(section) < 0) {
+        continue;
+      }
+
+      int headerPosition = reverseLayout ? mSectionIndex.getSectionEnd(section) : mSectionIndex.getSectionStart(section);
+      if (!hasStickyHeader || headerPosition != stickyPosition) {
+        View itemView = layoutManager.findViewByPosition(headerPosition);
+        if (itemView != null) {
+          drawHeader(canvas, parent, itemView, headerPosition, false);
         }
       }
+
+      if (mFooterPositionCalculator != null && section != stickyFooterSection) {
+        int footerPosition = mFooterPositionCalculator.getFooterPosition(section, reverseLayout);
+        View itemView = layoutManager.findViewByPosition(footerPosition);
+        if (itemView != null) {
+          drawFooter(canvas, parent, itemView, footerPosition);
+        }
+      }
+    }
+
+    if (stickyFooterSection != -1) {
+      drawStickyFooter(canvas, parent, stickyFooterView, endPosition, stickyFooterSection, reverseLayout);
+    }
+  }
+
+  /**
+   * The sticky header is drawn for the first item of the row at the top of the list, as given by
+   * the layout manager: children are not attached in position order in every layout, so the first
+   * child is not always that item.
+   *
+   * @return the position of the item, or {@link RecyclerView#NO_POSITION} if there is none
+   */
+  private int findStickyPosition(DecorationFrame frame) {
+    int startPosition = frame.getLayoutInfo().findStartAnchorPosition();
+    if (startPosition == RecyclerView.NO_POSITION || startPosition >= mAdapter.getItemCount()) {
+      return RecyclerView.NO_POSITION;
+    }
+
+    int rowStart = getRowStart(startPosition);
+    return frame.getParent().getLayoutManager().findViewByPosition(rowStart) != null ? rowStart : startPosition;
+  }
+
+  private int getRowStart(int position) {
+    return position - position % (mAdapter.getNumColumns() - mAdapter.getSpanSize(position) + 1);
+  }
+
+  private void drawHeader(Canvas canvas, RecyclerView parent, View itemView, int position, boolean hasStickyHeader) {
+    if (mOverBudget && !hasStickyHeader) {
+      return;
+    }
+
+    View header = mHeaderProvider.getHeader(parent, position);
+    boolean sticky = mEnableStickyHeader;
+
+    if (mEnableStickyHeader && hasStickyHeader) {
+      // The regular header scrolls with its section until the pinned one fits above the item. Only
+      // the sticky header has a pinned variant, so it is not created for every section on screen.
+      View pinnedHeader = mHeaderProvider.getPinnedHeader(parent, position);
+      if (pinnedHeader != header) {
+        sticky = mHeaderPositionCalculator.isHeaderPinned(parent, pinnedHeader, itemView);
+        if (sticky) {
+          header = pinnedHeader;
+        }
+      }
+    }
+
+    // The next header is not drawn while over budget, so it does not push the sticky one either
+    Rect headerOffset = mHeaderPositionCalculator.getHeaderBounds(parent, header, itemView, hasStickyHeader, sticky, mStickyHeaderStrategy, mTransform, !mOverBudget);
+    mRenderer.drawHeader(parent, canvas, header, mAdapter.getHeaderId(position), headerOffset, mTransform);
+
+    mHeaderRects.put(position, headerOffset);
+    mDrawnHeaders.put(position, header);
+
+    // Listeners are called again by the full fidelity frame drawn when the list stops
+    if (mEnableStickyHeader && mHeaderListener != null && !mOverBudget) {
+      mHeaderListener.onHeaderPositionChanged(this, mAdapter.getHeaderId(position), header, position, headerOffset);
+    }
+  }
+
+  private void drawFooter(Canvas canvas, RecyclerView parent, View itemView, int position) {
+    if (mOverBudget) {
+      return;
+    }
+
+    View footer = mFooterProvider.getHeader(parent, position);
+    mFooterPositionCalculator.getFooterBounds(mFooterBounds, parent, footer, itemView);
+    mRenderer.drawHeader(parent, canvas, footer, mFooterBounds);
+  }
+
+  private void drawStickyFooter(Canvas canvas, RecyclerView parent, View stickyView, int position, int section, boolean reverseLayout) {
+    View footer = mFooterProvider.getHeader(parent, position);
+    if (mEnableStickyHeader) {
+      mFooterPositionCalculator.getStickyFooterBounds(mFooterBounds, parent, footer, stickyView, section, reverseLayout);
+      mRenderer.drawHeader(parent, canvas, footer, mFooterBounds);
+    } else {
+      View lastView = parent.getLayoutManager().findViewByPosition(mFooterPositionCalculator.getFooterPosition(section, reverseLayout));
+      if (lastView != null) {
+        mFooterPositionCalculator.getFooterBounds(mFooterBounds, parent, footer, lastView);
+        mRenderer.drawHeader(parent, canvas, footer, mFooterBounds);
+      }
+    }
+  }
+
+  /**
+   * @return index in the frame of the item crossing the bottom (or right) of the list, whose footer
+   * sticks to that edge, or -1 if there is none
+   */
+  private int findStickyFooterChild(DecorationFrame frame) {
+    RecyclerView parent = frame.getParent();
+    for (int i = 0; i < frame.getChildCount(); i++) {
+      int position = frame.getPosition(i);
+      if (position != RecyclerView.NO_POSITION && frame.getSection(i) != -1 && frame.isChildInViewport(i)
+          && mFooterPositionCalculator.hasStickyFooter(parent, frame.getChildAt(i), frame.getOrientation(), position)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return true if the section index can be used, false while it is built in the background
+   */
+  private boolean isSectionIndexReady() {
+    mSectionIndex.ensureBuilt();
+    return mSectionIndex.isValid();
+  }
+
+  /**
+   * Routes the changes of the adapter of the RecyclerView to the section index, so that headers
+   * follow items that are changed, moved or removed without the app having to forward them. The
+   * observer is moved when the RecyclerView gets another adapter.
+   */
+  private void observeAdapter(RecyclerView parent) {
+    if (parent != mObservedParent) {
+      mObservedParent = parent;
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1) {
+        parent.addOnAttachStateChangeListener(new DetachListener(this));
+      }
+    }
+
+    RecyclerView.Adapter adapter = parent.getAdapter();
+    if (adapter == mObservedAdapter) {
+      return;
+    }
+
+    if (mObservedAdapter != null) {
+      mObservedAdapter.unregisterAdapterDataObserver(mAdapterObserver);
+      mAdapterObserver = null;
+    }
+
+    mObservedAdapter = adapter;
+    if (adapter != null) {
+      mAdapterObserver = new AdapterObserver(this, adapter);
+      adapter.registerAdapterDataObserver(mAdapterObserver);
+    }
+    // The index may have been built while the changes of the new adapter were not observed
+    mSectionIndex.markStale();
+  }
+
+  private void onAdapterItemsChanged() {
+    mSectionIndex.markStale();
+    mHeaderRects.clear();
+    mDrawnHeaders.clear();
+  }
+
+  /**
+   * Recycles the headers used neither for item offsets nor for drawing in the last layout and the
+   * frames drawn since. Headers are only recycled on the first frame after a layout: offsets are
+   * computed for attached children that are not drawn, and their headers would otherwise be
+   * recycled on every frame and bound again on the next layout.
+   */
+  private void recycleUnusedHeaders() {
+    if (!mLaidOutSinceRecycle) {
+      return;
+    }
+    mLaidOutSinceRecycle = false;
+
+    mHeaderProvider.recycleUnusedHeaders();
+    if (mFooterProvider != null) {
+      mFooterProvider.recycleUnusedHeaders();
     }
   }
 
@@ -157,6 +563,29 @@ public class StickyRecyclerHeadersDecoration extends RecyclerView.ItemDecoration
     return -1;
   }
 
+  /**
+   * @return number of headers drawn in the last frame
+   */
+  public int getDrawnHeaderCount() {
+    return mHeaderRects.size();
+  }
+
+  /**
+   * @param index of a header drawn in the last frame, from 0 to {@link #getDrawnHeaderCount()}
+   * @return position of the item the header was drawn for
+   */
+  public int getDrawnHeaderPosition(int index) {
+    return mHeaderRects.keyAt(index);
+  }
+
+  /**
+   * @param position of an item a header was drawn for in the last frame
+   * @return bounds of the header in the RecyclerView, or null if no header was drawn for the item
+   */
+  public Rect getDrawnHeaderBounds(int position) {
+    return mHeaderRects.get(position);
+  }
+
   /**
    * Gets the header view for the associated position.  If it doesn't exist yet, it will be
    * created, measured, and laid out.
@@ -169,15 +598,186 @@ public class StickyRecyclerHeadersDecoration extends RecyclerView.ItemDecoration
     return mHeaderProvider.getHeader(parent, position);
   }
 
+  /**
+   * Gets the header view drawn in the last frame for the associated position, which is the pinned
+   * header of a {@link com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersPinnedAdapter}
+   * while it is pinned. Falls back to {@link #getHeaderView(RecyclerView, int)}.
+   *
+   * @param parent the recyclerview
+   * @param position the position to get the header view for
+   * @return Header view
+   */
+  public View getDrawnHeaderView(RecyclerView parent, int position) {
+    View header = mDrawnHeaders.get(position);
+    return header != null ? header : getHeaderView(parent, position);
+  }
+
   /**
    * Invalidates cached headers. This does not invalidate the recyclerview, you should do that manually after
    * calling this method.
    */
   public void invalidateHeaders() {
+    // Snapshots would keep drawing the header as it was
+    mRenderer.clearSnapshots();
     mHeaderProvider.invalidate();
+    if (mFooterProvider != null) {
+      mFooterProvider.invalidate();
+    }
+    mSectionIndex.invalidate();
     mHeaderRects.clear();
+    mDrawnHeaders.clear();
+  }
+
+  /**
+   * Tells the decoration that items were inserted in the adapter. Changes to the adapter of the
+   * RecyclerView are already observed by the decoration, this is only needed when the headers come
+   * from another adapter. Items inserted at the start or the end of the adapter, like history
+   * loaded at the top of a reverse layout, are added to the section index without rebuilding it.
+   *
+   * @param positionStart position of the first inserted item
+   * @param itemCount     number of inserted items
+   */
+  public void onItemRangeInserted(int positionStart, int itemCount) {
+    mSectionIndex.onItemRangeInserted(positionStart, itemCount);
+    mHeaderRects.clear();
+    mDrawnHeaders.clear();
+  }
+
+  /**
+   * Invalidates the cached header with the given id, it will be created again the next time it is
+   * needed. This does not invalidate the recyclerview, you should do that manually after calling
+   * this method.
+   *
+   * @param headerId id of the header to invalidate
+   */
+  public void invalidateHeader(long headerId) {
+    mRenderer.clearSnapshots();
+    mHeaderProvider.invalidate(headerId);
+    if (mFooterProvider != null) {
+      mFooterProvider.invalidate(headerId);
+    }
+  }
+
+  /**
+   * Binds the cached header with the given id again, in place and without inflating it. The bind
+   * happens the next time the header is needed. This does not invalidate the recyclerview, you
+   * should do that manually after calling this method, or call
+   * {@link RecyclerView#invalidateItemDecorations()} if the size of the header can change.
+   *
+   * @param headerId id of the header to rebind
+   */
+  public void rebindHeader(long headerId) {
+    mRenderer.clearSnapshots();
+    mHeaderProvider.rebind(headerId);
+    if (mFooterProvider != null) {
+      mFooterProvider.rebind(headerId);
+    }
+  }
+
+  /**
+   * Updates the cached header with the given id with a payload, see {@link #rebindHeader(long)}.
+   * The payloads are delivered to
+   * {@link com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersPayloadAdapter} adapters,
+   * other adapters get a full bind. The header is only measured again if the bind requested a
+   * layout.
+   *
+   * @param headerId id of the header to update
+   * @param payload  to bind the header with, or null for a full bind
+   */
+  public void rebindHeader(long headerId, Object payload) {
+    mRenderer.clearSnapshots();
+    mHeaderProvider.rebind(headerId, payload);
+    if (mFooterProvider != null) {
+      // Footers are not payload adapters, they get a full bind
+      mFooterProvider.rebind(headerId);
+    }
+  }
+
+  /**
+   * Applies the result of a {@link DiffUtil} calculation to the cached headers, as an alternative
+   * to {@link #invalidateHeaders()}. Headers whose section still starts with the same unchanged item
+   * are kept, the ones whose section changed are bound again and the ones that are gone are dropped.
+   * Call this right after dispatching the result to the adapter, before the next layout.
+   *
+   * @param diffResult the result that was dispatched to the adapter
+   */
+  public void applyDiff(DiffUtil.DiffResult diffResult) {
+    mDiffReconciler.apply(diffResult);
+    mRenderer.clearSnapshots();
+    if (mFooterProvider != null) {
+      // Footers depend on the last item of their section, which the reconciler does not track
+      mFooterProvider.invalidate();
+    }
+    mHeaderRects.clear();
+    mDrawnHeaders.clear();
+  }
+
+  /**
+   * Sets a pool to recycle header views into and take them from. Sharing a pool between the
+   * decorations of several RecyclerViews lets them reuse each other's headers instead of inflating
+   * their own. While a pool is set, headers that are not drawn anymore are recycled after each
+   * frame.
+   *
+   * @param headerViewPool the pool, or null to keep every header until it is invalidated
+   */
+  public void setHeaderViewPool(HeaderViewPool headerViewPool) {
+    mHeaderProvider.setHeaderViewPool(headerViewPool);
+  }
+
+  /**
+   * Releases cached headers under memory pressure. Register {@link #getComponentCallbacks()} with
+   * {@link android.content.Context#registerComponentCallbacks} to have it called by the system.
+   * While the app is running only the headers that are not on screen are released, once it is in
+   * the background all of them are. Released headers are created again when they are needed.
+   *
+   * @param level trim level, as given to {@link ComponentCallbacks2#onTrimMemory(int)}
+   */
+  public void onTrimMemory(int level) {
+    // Drawn headers may have been released, pinned ones in particular
+    mDrawnHeaders.clear();
+    mHeaderProvider.trimMemory(level);
+    mRenderer.clearSnapshots();
+    mRenderer.releaseFadeBitmap();
+    if (mFooterProvider != null) {
+      mFooterProvider.trimMemory(level);
+    }
+  }
+
+  /**
+   * @return callbacks that forward memory pressure to {@link #onTrimMemory(int)}, to register with
+   * {@link android.content.Context#registerComponentCallbacks}. Only available from API 14.
+   */
+  @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+  public ComponentCallbacks2 getComponentCallbacks() {
+    if (mComponentCallbacks == null) {
+      mComponentCallbacks = new MemoryCallbacks(this);
+    }
+    return mComponentCallbacks;
+  }
+
+  /**
+   * @return estimation of the memory retained by this decoration for its headers, in bytes. A shared
+   * {@link HeaderViewPool} is not included, see {@link HeaderViewPool#getEstimatedRetainedBytes()}.
+   */
+  public long getEstimatedRetainedBytes() {
+    long footerBytes = mFooterProvider != null ? mFooterProvider.getEstimatedRetainedBytes() : 0;
+    return mHeaderProvider.getEstimatedRetainedBytes() + footerBytes + mSectionIndex.getEstimatedRetainedBytes()
+        + mRenderer.getEstimatedSnapshotBytes();
+  }
+
+  /**
+   * @return the index of the sections of the adapter, shared with other decorations that need to
+   * know section boundaries
+   */
+  public SectionIndex getSectionIndex() {
+    return mSectionIndex;
   }
 
+  /**
+   * @deprecated headers of children outside the list are not drawn anymore, so every drawn header
+   * is visible and this adapter is not needed
+   */
+  @Deprecated
   public void setVisibilityAdapter(ItemVisibilityAdapter visibilityAdapter) {
     this.mVisibilityAdapter = visibilityAdapter;
   }
@@ -186,7 +786,180 @@ public class StickyRecyclerHeadersDecoration extends RecyclerView.ItemDecoration
     this.mHeaderListener = headerListener;
   }
 
+  /**
+   * Sets how the sticky header behaves when the header of the next section comes up, see
+   * {@link StickyHeaderStrategies}. Has no effect if sticky headers are disabled.
+   *
+   * @param stickyHeaderStrategy the strategy, {@link StickyHeaderStrategies#PUSH} by default
+   */
+  public void setStickyHeaderStrategy(StickyHeaderStrategy stickyHeaderStrategy) {
+    this.mStickyHeaderStrategy = stickyHeaderStrategy;
+  }
+
+  /**
+   * Sets whether the sections on screen are found from the items at the edges of the list, as told
+   * by the layout manager, instead of by looking at every attached child. The work done per frame
+   * then only depends on the number of sections on screen, which matters when many children are
+   * attached off screen, like with a large {@link LinearLayoutManager#getExtraLayoutSpace}. It also
+   * leaves out the headers of the children that are attached but not visible.
+   *
+   * @param useLayoutAnchors true to ask the layout manager, false to walk the children (the default)
+   */
+  public void setUseLayoutAnchors(boolean useLayoutAnchors) {
+    mUseLayoutAnchors = useLayoutAnchors;
+    mHeaderPositionCalculator.setFindNextHeaderWithIndex(useLayoutAnchors);
+  }
+
+  /**
+   * Sets a budget for the time spent drawing the headers while the list scrolls. Past it, headers
+   * are drawn from snapshots, only the sticky header is drawn and the position listener is not
+   * called, until the list stops scrolling. The budget has to be added to the RecyclerView as a
+   * scroll listener too.
+   *
+   * @param frameBudget the budget, or null to always draw at full fidelity (the default)
+   */
+  public void setFrameBudget(FrameBudget frameBudget) {
+    mFrameBudget = frameBudget;
+  }
+
+  /**
+   * Builds the section index of a {@link com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersSnapshotAdapter}
+   * on the given executor, from a snapshot of its header ids. Until the index is published, headers
+   * are found by comparing the header ids of neighboring items, and the sticky header is not pushed
+   * in reverse layouts. The item decorations of the RecyclerView are invalidated once it is.
+   *
+   * @param executor to build the index on, possibly running several chunks of it in parallel, or
+   *                 null to build it on the UI thread (the default)
+   */
+  public void setSectionIndexExecutor(Executor executor) {
+    mSectionIndex.setBackgroundExecutor(executor);
+    mSectionIndex.setOnBuiltListener(executor == null ? null : new SectionIndex.OnBuiltListener() {
+      @Override
+      public void onSectionIndexBuilt(SectionIndex sectionIndex) {
+        if (mLastParent != null) {
+          mLastParent.invalidateItemDecorations();
+        }
+      }
+    });
+  }
+
   public boolean isStickyHeadersEnabled() {
     return this.mEnableStickyHeader;
   }
+
+  /**
+   * Forwards the changes of an adapter to the decoration. The decoration is held weakly, so that an
+   * adapter outliving the RecyclerView does not keep it alive, and the observer unregisters itself
+   * once the decoration is gone.
+   */
+  private static class AdapterObserver extends RecyclerView.AdapterDataObserver {
+    private final WeakReference<StickyRecyclerHeadersDecoration> mDecoration;
+    private final RecyclerView.Adapter mAdapter;
+
+    AdapterObserver(StickyRecyclerHeadersDecoration decoration, RecyclerView.Adapter adapter) {
+      mDecoration = new WeakReference<>(decoration);
+      mAdapter = adapter;
+    }
+
+    @Override
+    public void onChanged() {
+      StickyRecyclerHeadersDecoration decoration = getDecoration();
+      if (decoration != null) {
+        decoration.onAdapterItemsChanged();
+      }
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+      onChanged();
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+      onChanged();
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+      StickyRecyclerHeadersDecoration decoration = getDecoration();
+      if (decoration != null) {
+        decoration.onItemRangeInserted(positionStart, itemCount);
+      }
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+      onChanged();
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+      onChanged();
+    }
+
+    private StickyRecyclerHeadersDecoration getDecoration() {
+      StickyRecyclerHeadersDecoration decoration = mDecoration.get();
+      if (decoration == null) {
+        // Observers are notified from the last one, so this does not skip any of them
+        mAdapter.unregisterAdapterDataObserver(this);
+      }
+      return decoration;
+    }
+  }
+
+  /**
+   * Releases the bitmaps kept across frames once the RecyclerView leaves the window. Holds the
+   * decoration weakly, like {@link AdapterObserver}.
+   */
+  @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+  private static class DetachListener implements View.OnAttachStateChangeListener {
+    private final WeakReference<StickyRecyclerHeadersDecoration> mDecoration;
+
+    DetachListener(StickyRecyclerHeadersDecoration decoration) {
+      mDecoration = new WeakReference<>(decoration);
+    }
+
+    @Override
+    public void onViewAttachedToWindow(View view) {
+      // do nothing
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View view) {
+      StickyRecyclerHeadersDecoration decoration = mDecoration.get();
+      if (decoration == null) {
+        view.removeOnAttachStateChangeListener(this);
+        return;
+      }
+      decoration.mRenderer.releaseFadeBitmap();
+      decoration.mRenderer.clearSnapshots();
+    }
+  }
+
+  /**
+   * Kept apart from the decoration so that the decoration still loads before API 14
+   */
+  @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+  private static class MemoryCallbacks implements ComponentCallbacks2 {
+    private final StickyRecyclerHeadersDecoration mDecoration;
+
+    MemoryCallbacks(StickyRecyclerHeadersDecoration decoration) {
+      mDecoration = decoration;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+      mDecoration.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+      mDecoration.onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+      // do nothing
+    }
+  }
 }
@@ -0,0 +1,89 @@
+package com.timehop.stickyheadersrecyclerview.rendering;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * Keeps the cost of drawing the headers under a budget while the list scrolls. The decoration
+ * times each of its frames, and once the average cost goes over the budget during a scroll or a
+ * fling, the budget is exceeded: headers are then drawn from cached snapshots instead of their
+ * views, only the sticky header is drawn and position listeners are not called. Full fidelity
+ * comes back when the list stops scrolling, with a frame drawn right away.
+ *
+ * <pre>
+ * FrameBudget frameBudget = new FrameBudget(FrameBudget.DEFAULT_BUDGET_NANOS);
+ * recyclerView.addOnScrollListener(frameBudget);
+ * headersDecor.setFrameBudget(frameBudget);
+ * </pre>
+ */
+public class FrameBudget extends RecyclerView.OnScrollListener {
+
+  /**
+   * A quarter of a 60fps frame, the decoration shares the frame with the layout of the list
+   */
+  public static final long DEFAULT_BUDGET_NANOS = 4000000L;
+
+  /**
+   * Weight of the last frame in the average cost
+   */
+  private static final float SMOOTHING = 0.25f;
+
+  private final long mBudgetNanos;
+
+  private boolean mScrolling;
+  private boolean mExceeded;
+  private float mAverageNanos;
+  private long mFrameStart;
+
+  public FrameBudget(long budgetNanos) {
+    mBudgetNanos = budgetNanos;
+  }
+
+  @Override
+  public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+    mScrolling = newState != RecyclerView.SCROLL_STATE_IDLE;
+
+    if (!mScrolling && mExceeded) {
+      mExceeded = false;
+      mAverageNanos = 0;
+      // Draw the headers again at full fidelity
+      recyclerView.invalidate();
+    }
+  }
+
+  /**
+   * Called by the decoration before it draws a frame
+   */
+  public void beginFrame() {
+    mFrameStart = System.nanoTime();
+  }
+
+  /**
+   * Called by the decoration once it drew a frame
+   */
+  public void endFrame() {
+    long cost = System.nanoTime() - mFrameStart;
+    mAverageNanos = mAverageNanos == 0 ? cost : mAverageNanos + SMOOTHING * (cost - mAverageNanos);
+
+    if (mScrolling && mAverageNanos > mBudgetNanos) {
+      mExceeded = true;
+    }
+  }
+
+  /**
+   * @return true if headers should be drawn the cheap way, until the list stops scrolling
+   */
+  public boolean isExceeded() {
+    return mExceeded;
+  }
+
+  public long getBudgetNanos() {
+    return mBudgetNanos;
+  }
+
+  /**
+   * @return average cost of the recent frames, in nanoseconds
+   */
+  public long getAverageFrameNanos() {
+    return (long) mAverageNanos;
+  }
+}
@@ -0,0 +1,57 @@
+package com.timehop.stickyheadersrecyclerview.rendering;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+/**
+ * Draws headers straight to the canvas, for apps whose headers don't need to be views. Headers are
+ * only known by their header id: the decoration still positions them, pushes them off and hit tests
+ * them, but never creates a view tree per header. See
+ * {@link com.timehop.stickyheadersrecyclerview.caching.DrawnHeaderCache}.
+ * <p>
+ * All methods are called on the UI thread.
+ */
+public interface HeaderDrawer {
+
+  /**
+   * Measures a header. Sizes are cached by header id, so this is called again only after the header
+   * was invalidated or the space available to it changed.
+   *
+   * @param position          of an item of the section of the header
+   * @param headerId          of the header
+   * @param widthMeasureSpec  space available to the header, as given to {@link android.view.View#measure}:
+   *                          unspecified along the scroll axis of the list
+   * @param heightMeasureSpec space available to the header
+   * @param size              to set to {@code (0, 0, width, height)}
+   */
+  void measureHeader(int position, long headerId, int widthMeasureSpec, int heightMeasureSpec, Rect size);
+
+  /**
+   * Draws a header, the canvas is already translated to its top left corner
+   *
+   * @param width  of the header, as measured
+   * @param height of the header, as measured
+   */
+  void drawHeader(Canvas canvas, long headerId, int width, int height);
+
+  /**
+   * @return true if the header covers everything under it, so headers it covers are not drawn
+   */
+  boolean isHeaderOpaque(long headerId);
+
+  /**
+   * @return description of the header read by accessibility services, or null
+   */
+  CharSequence getHeaderDescription(long headerId);
+
+  /**
+   * Called when the content of a header changed, or when it is released to save memory. Anything
+   * cached for it should be dropped, it is measured again before being drawn.
+   */
+  void invalidateHeader(long headerId);
+
+  /**
+   * Called when all the headers changed, see {@link #invalidateHeader(long)}
+   */
+  void invalidateHeaders();
+}
@@ -1,22 +1,65 @@
 package com.timehop.stickyheadersrecyclerview.rendering;
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
 import android.graphics.Rect;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.LinearLayout;
 
 import com.timehop.stickyheadersrecyclerview.calculation.DimensionCalculator;
 import com.timehop.stickyheadersrecyclerview.util.OrientationProvider;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * Responsible for drawing headers to the canvas provided by the item decoration
+ * Responsible for drawing headers to the canvas provided by the item decoration.
+ * <p>
+ * Headers entirely outside the RecyclerView are not drawn, and the canvas is only clipped for the
+ * headers that cross its padding. Between {@link #beginFrame()} and {@link #endFrame(RecyclerView, Canvas)}
+ * headers are queued instead of drawn, so that a header entirely covered by an opaque header drawn
+ * after it, like a section start under the sticky header, is not drawn at all.
+ * <p>
+ * While snapshots are used, each header is drawn once into a bitmap that is then drawn instead of
+ * the header, which is much cheaper for headers with many views. A snapshot is kept for the header
+ * id it was taken for, and taken again when its view is bound to another header. Snapshots are not
+ * updated when a header changes without changing its id, so they are only meant to be used for
+ * short periods, like a fling.
+ * <p>
+ * Translucent headers are drawn into a bitmap that is drawn with the alpha of the header, instead of
+ * through an offscreen layer allocated on every frame. The bitmap is kept and reused by the next
+ * translucent headers.
  */
 public class HeaderRenderer {
 
+  /**
+   * Header id of headers drawn without an id, which are never drawn from a snapshot
+   */
+  public static final long NO_HEADER_ID = -1;
+
   private final DimensionCalculator mDimensionCalculator;
   private final OrientationProvider mOrientationProvider;
 
+  private final Rect mClipRect = new Rect();
+  private final Rect mMargins = new Rect();
+
+  private final List<QueuedHeader> mQueuedHeaders = new ArrayList<>();
+  private int mQueuedHeaderCount;
+  private boolean mInFrame;
+
+  private final Map<View, Snapshot> mSnapshots = new HashMap<>();
+  private boolean mUseSnapshots;
+
+  private final Paint mAlphaPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private Bitmap mFadeBitmap;
+  private Canvas mFadeCanvas;
+
   public HeaderRenderer(OrientationProvider orientationProvider) {
     this(orientationProvider, new DimensionCalculator());
   }
@@ -26,6 +69,77 @@ public class HeaderRenderer {
     mDimensionCalculator = dimensionCalculator;
   }
 
+  /**
+   * Sets whether headers are drawn from snapshots, see {@link #clearSnapshots()} to release them
+   */
+  public void setUseSnapshots(boolean useSnapshots) {
+    mUseSnapshots = useSnapshots;
+  }
+
+  /**
+   * Releases the snapshots of the headers, they are taken again the next time they are used
+   */
+  public void clearSnapshots() {
+    if (mSnapshots.isEmpty()) {
+      return;
+    }
+    for (Snapshot snapshot : mSnapshots.values()) {
+      snapshot.bitmap.recycle();
+    }
+    mSnapshots.clear();
+  }
+
+  /**
+   * Releases the bitmap translucent headers are drawn into, it is created again the next time a
+   * header is drawn translucent. It is kept across frames otherwise, unlike snapshots.
+   */
+  public void releaseFadeBitmap() {
+    if (mFadeBitmap != null) {
+      mFadeBitmap.recycle();
+      mFadeBitmap = null;
+      mFadeCanvas = null;
+    }
+  }
+
+  /**
+   * @return estimation of the memory retained by the snapshots of the headers, in bytes
+   */
+  public long getEstimatedSnapshotBytes() {
+    long bytes = 0;
+    for (Snapshot snapshot : mSnapshots.values()) {
+      // getByteCount() is only available from API 12
+      bytes += (long) snapshot.bitmap.getRowBytes() * snapshot.bitmap.getHeight();
+    }
+    return bytes;
+  }
+
+  /**
+   * Starts queuing the headers drawn with {@link #drawHeader}, until {@link #endFrame} draws them
+   */
+  public void beginFrame() {
+    mInFrame = true;
+    mQueuedHeaderCount = 0;
+  }
+
+  /**
+   * Draws the headers queued since {@link #beginFrame()} in the order they were queued, leaving out
+   * the ones entirely covered by an opaque header queued after them
+   */
+  public void endFrame(RecyclerView recyclerView, Canvas canvas) {
+    mInFrame = false;
+
+    for (int i = 0; i < mQueuedHeaderCount; i++) {
+      QueuedHeader queuedHeader = mQueuedHeaders.get(i);
+      if (!isCoveredByLaterHeader(i)) {
+        draw(recyclerView, canvas, queuedHeader.header, queuedHeader.headerId, queuedHeader.bounds, queuedHeader.transform);
+      }
+      // Don't hold on to the view until the next frame
+      queuedHeader.header = null;
+    }
+
+    mQueuedHeaderCount = 0;
+  }
+
   /**
    * Draws a header to a canvas, offsetting by some x and y amount
    *
@@ -36,19 +150,165 @@ public class HeaderRenderer {
    *                     the {@link Rect#left} and {@link Rect#top} properties, respectively.
    */
   public void drawHeader(RecyclerView recyclerView, Canvas canvas, View header, Rect offset) {
-    canvas.save();
+    drawHeader(recyclerView, canvas, header, offset, null);
+  }
 
-    if (recyclerView.getLayoutManager().getClipToPadding()) {
-      // Clip drawing of headers to the padding of the RecyclerView. Avoids drawing in the padding
-      Rect clipRect = getClipRectForHeader(recyclerView, header);
-      canvas.clipRect(clipRect);
+  /**
+   * Draws a header to a canvas with the transform computed by a {@link StickyHeaderStrategy}. The
+   * transform is only applied to the canvas, the header view is left untouched. Both are copied if
+   * the header is queued.
+   *
+   * @param offset    bounds of the header, already translated by the transform
+   * @param transform to draw the header with, or null to draw it as is
+   */
+  public void drawHeader(RecyclerView recyclerView, Canvas canvas, View header, Rect offset, HeaderTransform transform) {
+    drawHeader(recyclerView, canvas, header, NO_HEADER_ID, offset, transform);
+  }
+
+  /**
+   * Draws a header to a canvas with the transform computed by a {@link StickyHeaderStrategy}. While
+   * snapshots are used, the header is drawn from the snapshot taken for its header id.
+   *
+   * @param headerId  id of the header the view is bound to, or {@link #NO_HEADER_ID}
+   * @param offset    bounds of the header, already translated by the transform
+   * @param transform to draw the header with, or null to draw it as is
+   */
+  public void drawHeader(RecyclerView recyclerView, Canvas canvas, View header, long headerId, Rect offset, HeaderTransform transform) {
+    if (transform != null && transform.getAlpha() <= 0f) {
+      return;
+    }
+
+    if (!Rect.intersects(getVisibleRect(recyclerView, header), offset)) {
+      return;
+    }
+
+    if (!mInFrame) {
+      draw(recyclerView, canvas, header, headerId, offset, transform);
+      return;
+    }
+
+    if (mQueuedHeaderCount == mQueuedHeaders.size()) {
+      mQueuedHeaders.add(new QueuedHeader());
+    }
+    QueuedHeader queuedHeader = mQueuedHeaders.get(mQueuedHeaderCount++);
+    queuedHeader.header = header;
+    queuedHeader.headerId = headerId;
+    queuedHeader.bounds.set(offset);
+    if (transform != null) {
+      queuedHeader.transform.set(transform);
+    } else {
+      queuedHeader.transform.reset();
+    }
+  }
+
+  private boolean isCoveredByLaterHeader(int index) {
+    Rect bounds = mQueuedHeaders.get(index).bounds;
+    for (int i = index + 1; i < mQueuedHeaderCount; i++) {
+      QueuedHeader other = mQueuedHeaders.get(i);
+      if (other.isOpaque() && other.bounds.contains(bounds)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void draw(RecyclerView recyclerView, Canvas canvas, View header, long headerId, Rect offset, HeaderTransform transform) {
+    int saveCount = canvas.save();
+
+    // Clip drawing of headers to the padding of the RecyclerView, unless the header is inside it
+    Rect visibleRect = getVisibleRect(recyclerView, header);
+    if (recyclerView.getLayoutManager().getClipToPadding() && !visibleRect.contains(offset)) {
+      canvas.clipRect(visibleRect);
+    }
+
+    if (transform != null && transform.getClipStart() > 0) {
+      if (mOrientationProvider.getOrientation(recyclerView) == LinearLayout.VERTICAL) {
+        canvas.clipRect(offset.left, offset.top + transform.getClipStart(), offset.right, offset.bottom);
+      } else {
+        canvas.clipRect(offset.left + transform.getClipStart(), offset.top, offset.right, offset.bottom);
+      }
     }
 
     canvas.translate(offset.left, offset.top);
 
-    header.draw(canvas);
+    // A header without children draws about as fast as its snapshot, and drawn headers reuse their
+    // views for other header ids, so only view trees are snapshot
+    Bitmap snapshot = mUseSnapshots && headerId != NO_HEADER_ID && header instanceof ViewGroup ? getSnapshot(header, headerId) : null;
+    int alpha = transform != null ? Math.round(transform.getAlpha() * 255) : 255;
+    if (snapshot == null && alpha < 255) {
+      snapshot = drawToFadeBitmap(header);
+    }
 
-    canvas.restore();
+    if (snapshot != null) {
+      mAlphaPaint.setAlpha(alpha);
+      canvas.drawBitmap(snapshot, 0, 0, mAlphaPaint);
+    } else {
+      header.draw(canvas);
+    }
+
+    canvas.restoreToCount(saveCount);
+  }
+
+  /**
+   * @return the snapshot of the header, taken now if there is none for its header id, or null if
+   * the header is empty
+   */
+  private Bitmap getSnapshot(View header, long headerId) {
+    Snapshot snapshot = mSnapshots.get(header);
+    if (snapshot != null && snapshot.headerId == headerId
+        && snapshot.bitmap.getWidth() == header.getWidth() && snapshot.bitmap.getHeight() == header.getHeight()) {
+      return snapshot.bitmap;
+    }
+
+    if (snapshot != null) {
+      // The view was bound to another header, or resized, since the snapshot was taken
+      snapshot.bitmap.recycle();
+      mSnapshots.remove(header);
+    }
+    if (header.getWidth() <= 0 || header.getHeight() <= 0) {
+      return null;
+    }
+
+    Bitmap bitmap = Bitmap.createBitmap(header.getWidth(), header.getHeight(), Bitmap.Config.ARGB_8888);
+    header.draw(new Canvas(bitmap));
+    mSnapshots.put(header, new Snapshot(bitmap, headerId));
+    return bitmap;
+  }
+
+  /**
+   * Draws the header into the fade bitmap, which only grows when a larger header is drawn
+   *
+   * @return the fade bitmap, or null if the header is empty
+   */
+  private Bitmap drawToFadeBitmap(View header) {
+    if (header.getWidth() <= 0 || header.getHeight() <= 0) {
+      return null;
+    }
+
+    if (mFadeBitmap == null || mFadeBitmap.getWidth() < header.getWidth() || mFadeBitmap.getHeight() < header.getHeight()) {
+      int width = Math.max(header.getWidth(), mFadeBitmap != null ? mFadeBitmap.getWidth() : 0);
+      int height = Math.max(header.getHeight(), mFadeBitmap != null ? mFadeBitmap.getHeight() : 0);
+      if (mFadeBitmap != null) {
+        mFadeBitmap.recycle();
+      }
+      mFadeBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      mFadeCanvas = new Canvas(mFadeBitmap);
+    }
+
+    mFadeBitmap.eraseColor(Color.TRANSPARENT);
+    header.draw(mFadeCanvas);
+    return mFadeBitmap;
+  }
+
+  /**
+   * Area headers can be seen in: the RecyclerView, or the inside of its padding if it clips to it.
+   */
+  private Rect getVisibleRect(RecyclerView recyclerView, View header) {
+    if (recyclerView.getLayoutManager().getClipToPadding()) {
+      return getClipRectForHeader(recyclerView, header);
+    }
+    mClipRect.set(0, 0, recyclerView.getWidth(), recyclerView.getHeight());
+    return mClipRect;
   }
 
   /**
@@ -62,20 +322,51 @@ public class HeaderRenderer {
    * @param header       for clipping
    */
   private Rect getClipRectForHeader(RecyclerView recyclerView, View header) {
-    Rect headerMargins = mDimensionCalculator.getMargins(header);
+    Rect headerMargins = mDimensionCalculator.initMargins(mMargins, header);
 
     if (mOrientationProvider.getOrientation(recyclerView) == LinearLayout.VERTICAL) {
-      return new Rect(
+      mClipRect.set(
           recyclerView.getPaddingLeft(),
           recyclerView.getPaddingTop(),
           recyclerView.getWidth() - recyclerView.getPaddingRight() - headerMargins.right,
           recyclerView.getHeight() - recyclerView.getPaddingBottom());
     } else {
-      return new Rect(
+      mClipRect.set(
           recyclerView.getPaddingLeft(),
           recyclerView.getPaddingTop(),
           recyclerView.getWidth() - recyclerView.getPaddingRight(),
           recyclerView.getHeight() - recyclerView.getPaddingBottom() - headerMargins.bottom);
     }
+    return mClipRect;
+  }
+
+  /**
+   * A header waiting for {@link #endFrame} to be drawn
+   */
+  private static class QueuedHeader {
+    View header;
+    long headerId;
+    final Rect bounds = new Rect();
+    final HeaderTransform transform = new HeaderTransform();
+
+    /**
+     * @return true if nothing drawn under the header shows through it
+     */
+    boolean isOpaque() {
+      return transform.getAlpha() >= 1f && transform.getClipStart() <= 0 && header.isOpaque();
+    }
+  }
+
+  /**
+   * A header drawn into a bitmap, for the header id its view was bound to
+   */
+  private static class Snapshot {
+    final Bitmap bitmap;
+    final long headerId;
+
+    Snapshot(Bitmap bitmap, long headerId) {
+      this.bitmap = bitmap;
+      this.headerId = headerId;
+    }
   }
 }
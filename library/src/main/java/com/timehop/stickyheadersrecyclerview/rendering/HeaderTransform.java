@@ -0,0 +1,68 @@
+package com.timehop.stickyheadersrecyclerview.rendering;
+
+/**
+ * How a sticky header is drawn on top of its bounds, as computed by a {@link StickyHeaderStrategy}.
+ * Applied by the {@link HeaderRenderer} on the canvas only, so the header view itself is never
+ * changed or invalidated. Distances are along the scrolling axis of the RecyclerView, in pixels.
+ */
+public class HeaderTransform {
+
+  private int mTranslation;
+  private int mClipStart;
+  private float mAlpha;
+
+  public HeaderTransform() {
+    reset();
+  }
+
+  /**
+   * Draws the header as is
+   */
+  public void reset() {
+    mTranslation = 0;
+    mClipStart = 0;
+    mAlpha = 1f;
+  }
+
+  /**
+   * Copies another transform
+   */
+  public void set(HeaderTransform other) {
+    mTranslation = other.mTranslation;
+    mClipStart = other.mClipStart;
+    mAlpha = other.mAlpha;
+  }
+
+  /**
+   * @return distance the header is moved by, negative towards the top (or left) of the list
+   */
+  public int getTranslation() {
+    return mTranslation;
+  }
+
+  public void setTranslation(int translation) {
+    mTranslation = translation;
+  }
+
+  /**
+   * @return size of the leading part of the header that is not drawn, once translated
+   */
+  public int getClipStart() {
+    return mClipStart;
+  }
+
+  public void setClipStart(int clipStart) {
+    mClipStart = clipStart;
+  }
+
+  /**
+   * @return opacity the header is drawn with, from 0 to 1
+   */
+  public float getAlpha() {
+    return mAlpha;
+  }
+
+  public void setAlpha(float alpha) {
+    mAlpha = alpha;
+  }
+}
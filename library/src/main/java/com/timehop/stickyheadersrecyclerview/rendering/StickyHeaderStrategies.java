@@ -0,0 +1,63 @@
+package com.timehop.stickyheadersrecyclerview.rendering;
+
+/**
+ * Built in {@link StickyHeaderStrategy} implementations
+ */
+public final class StickyHeaderStrategies {
+
+  /**
+   * The next header pushes the sticky header off, the default behavior
+   */
+  public static final StickyHeaderStrategy PUSH = new StickyHeaderStrategy() {
+    @Override
+    public void computeTransform(HeaderTransform transform, int headerSize, int scrolledDistance, int pushShift) {
+      transform.setTranslation(pushShift);
+    }
+  };
+
+  /**
+   * The sticky header stays in place and the next header slides over it
+   */
+  public static final StickyHeaderStrategy OVERLAY = new StickyHeaderStrategy() {
+    @Override
+    public void computeTransform(HeaderTransform transform, int headerSize, int scrolledDistance, int pushShift) {
+      // do nothing
+    }
+  };
+
+  /**
+   * The sticky header stays in place and fades out as the next header slides over it. Only the
+   * sticky header fades: the next header is drawn as usual, there is no cross-fade.
+   */
+  public static final StickyHeaderStrategy FADE = new StickyHeaderStrategy() {
+    @Override
+    public void computeTransform(HeaderTransform transform, int headerSize, int scrolledDistance, int pushShift) {
+      if (pushShift < 0 && headerSize > 0) {
+        transform.setAlpha(Math.max(0f, 1f + (float) pushShift / headerSize));
+      }
+    }
+  };
+
+  private StickyHeaderStrategies() {
+  }
+
+  /**
+   * The sticky header scrolls away with its section until only its last {@code compactSizePx}
+   * pixels are left, which stay pinned until the next header pushes them off. Headers with a title
+   * bar at the bottom collapse to that bar.
+   *
+   * @param compactSizePx height (or width in horizontal layouts) the header collapses to
+   */
+  public static StickyHeaderStrategy collapse(final int compactSizePx) {
+    return new StickyHeaderStrategy() {
+      @Override
+      public void computeTransform(HeaderTransform transform, int headerSize, int scrolledDistance, int pushShift) {
+        int collapsed = Math.max(0, Math.min(scrolledDistance, headerSize - compactSizePx));
+
+        // The next header only pushes once it reaches the part that is left
+        transform.setTranslation(-collapsed + Math.min(0, pushShift + collapsed));
+        transform.setClipStart(collapsed);
+      }
+    };
+  }
+}
@@ -0,0 +1,20 @@
+package com.timehop.stickyheadersrecyclerview.rendering;
+
+/**
+ * Decides how the sticky header behaves while its section scrolls under it and the header of the
+ * next section comes up. Called for the sticky header on every frame, so implementations should
+ * only do arithmetic on the given values. See {@link StickyHeaderStrategies} for the built in
+ * behaviors.
+ */
+public interface StickyHeaderStrategy {
+
+  /**
+   * @param transform        to fill in, reset when called
+   * @param headerSize       height (or width in horizontal layouts) of the header, with its margins
+   * @param scrolledDistance how far the section has scrolled past the place the header is pinned
+   *                         to, 0 or more
+   * @param pushShift        shift that keeps the header right before the header of the next
+   *                         section, negative once that header reaches the sticky one and 0 otherwise
+   */
+  void computeTransform(HeaderTransform transform, int headerSize, int scrolledDistance, int pushShift);
+}
@@ -0,0 +1,57 @@
+package com.timehop.stickyheadersrecyclerview.rendering;
+
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.text.Layout;
+import android.text.TextPaint;
+
+/**
+ * How the headers of a {@link com.timehop.stickyheadersrecyclerview.StickyRecyclerTextHeadersAdapter}
+ * are drawn: the paint of their text, its alignment, the padding around it and the color behind it.
+ * <p>
+ * Headers are laid out with the style once and cached, so changing it afterwards requires
+ * invalidating the headers.
+ */
+public class TextHeaderStyle {
+
+  private final TextPaint mPaint;
+  private final Rect mPadding = new Rect();
+  private int mBackgroundColor = Color.TRANSPARENT;
+  private Layout.Alignment mAlignment = Layout.Alignment.ALIGN_NORMAL;
+
+  /**
+   * @param paint to draw the text with. It is copied for the layouts prepared in the background, so
+   *              it should not be changed afterwards.
+   */
+  public TextHeaderStyle(TextPaint paint) {
+    mPaint = paint;
+  }
+
+  public TextPaint getPaint() {
+    return mPaint;
+  }
+
+  public void setPadding(int left, int top, int right, int bottom) {
+    mPadding.set(left, top, right, bottom);
+  }
+
+  public Rect getPadding() {
+    return mPadding;
+  }
+
+  public void setBackgroundColor(int backgroundColor) {
+    mBackgroundColor = backgroundColor;
+  }
+
+  public int getBackgroundColor() {
+    return mBackgroundColor;
+  }
+
+  public void setAlignment(Layout.Alignment alignment) {
+    mAlignment = alignment;
+  }
+
+  public Layout.Alignment getAlignment() {
+    return mAlignment;
+  }
+}
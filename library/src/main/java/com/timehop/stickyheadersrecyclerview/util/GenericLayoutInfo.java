@@ -0,0 +1,67 @@
+package com.timehop.stickyheadersrecyclerview.util;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.widget.LinearLayout;
+
+/**
+ * {@link LayoutInfo} of any LayoutManager, like a flexbox or a carousel LayoutManager, that does
+ * not implement {@link LayoutInfo} itself. The scroll axis is the one the LayoutManager can scroll
+ * along, the layout is never reversed and has no spans, and the items at the edges of the list are
+ * the attached children with the lowest and highest positions. Children are not assumed to be
+ * attached in the order of their positions.
+ */
+public class GenericLayoutInfo implements LayoutInfo {
+
+  private final RecyclerView.LayoutManager mLayoutManager;
+
+  public GenericLayoutInfo(RecyclerView.LayoutManager layoutManager) {
+    mLayoutManager = layoutManager;
+  }
+
+  @Override
+  public int getOrientation() {
+    return mLayoutManager.canScrollHorizontally() && !mLayoutManager.canScrollVertically() ? LinearLayout.HORIZONTAL : LinearLayout.VERTICAL;
+  }
+
+  @Override
+  public boolean isReverseLayout() {
+    return false;
+  }
+
+  @Override
+  public int getSpanCount() {
+    return 1;
+  }
+
+  @Override
+  public int getSpanSize(int position) {
+    return 1;
+  }
+
+  @Override
+  public int getSpanIndex(View child) {
+    return 0;
+  }
+
+  @Override
+  public int findStartAnchorPosition() {
+    int position = RecyclerView.NO_POSITION;
+    for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+      int childPosition = mLayoutManager.getPosition(mLayoutManager.getChildAt(i));
+      if (childPosition != RecyclerView.NO_POSITION && (position == RecyclerView.NO_POSITION || childPosition < position)) {
+        position = childPosition;
+      }
+    }
+    return position;
+  }
+
+  @Override
+  public int findEndAnchorPosition() {
+    int position = RecyclerView.NO_POSITION;
+    for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+      position = Math.max(position, mLayoutManager.getPosition(mLayoutManager.getChildAt(i)));
+    }
+    return position;
+  }
+}
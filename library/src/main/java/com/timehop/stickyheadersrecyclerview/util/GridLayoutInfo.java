@@ -0,0 +1,35 @@
+package com.timehop.stickyheadersrecyclerview.util;
+
+import android.support.v7.widget.GridLayoutManager;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * {@link LayoutInfo} of a {@link GridLayoutManager}, with its span size lookup
+ */
+public class GridLayoutInfo extends LinearLayoutInfo {
+
+  private final GridLayoutManager mLayoutManager;
+
+  public GridLayoutInfo(GridLayoutManager layoutManager) {
+    super(layoutManager);
+    mLayoutManager = layoutManager;
+  }
+
+  @Override
+  public int getSpanCount() {
+    return mLayoutManager.getSpanCount();
+  }
+
+  @Override
+  public int getSpanSize(int position) {
+    return Math.min(mLayoutManager.getSpanSizeLookup().getSpanSize(position), getSpanCount());
+  }
+
+  @Override
+  public int getSpanIndex(View child) {
+    ViewGroup.LayoutParams params = child.getLayoutParams();
+    // Items are only laid out by the grid, so their params can't be of another kind
+    return Math.max(((GridLayoutManager.LayoutParams) params).getSpanIndex(), 0);
+  }
+}
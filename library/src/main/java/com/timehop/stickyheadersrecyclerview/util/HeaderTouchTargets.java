@@ -0,0 +1,138 @@
+package com.timehop.stickyheadersrecyclerview.util;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.util.List;
+
+/**
+ * Finds the child views of a header that handle clicks. Headers are drawn but never attached, so
+ * their children are looked up from the layout of the header, in its own coordinates. View
+ * transformations like translations are not taken into account.
+ */
+public final class HeaderTouchTargets {
+
+  private HeaderTouchTargets() {
+  }
+
+  /**
+   * @param header the header
+   * @param x      in the coordinates of the header
+   * @param y      in the coordinates of the header
+   * @return the innermost enabled, clickable and visible child of the header under the point, or
+   * null if there is none. The header itself is never returned.
+   */
+  public static View findClickableChildUnder(View header, float x, float y) {
+    if (!(header instanceof ViewGroup)) {
+      return null;
+    }
+
+    ViewGroup group = (ViewGroup) header;
+    // Last children are drawn on top
+    for (int i = group.getChildCount() - 1; i >= 0; i--) {
+      View child = group.getChildAt(i);
+      if (child.getVisibility() != View.VISIBLE) {
+        continue;
+      }
+
+      float childX = x + group.getScrollX() - child.getLeft();
+      float childY = y + group.getScrollY() - child.getTop();
+      if (childX < 0 || childY < 0 || childX >= child.getWidth() || childY >= child.getHeight()) {
+        continue;
+      }
+
+      View target = findClickableChildUnder(child, childX, childY);
+      if (target != null) {
+        return target;
+      }
+      if (child.isClickable() && child.isEnabled()) {
+        return child;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Collects the enabled, clickable and visible children of a header, in drawing order, with their
+   * bounds in the coordinates of the header
+   *
+   * @param header   the header
+   * @param children filled with the clickable children
+   * @param bounds   filled with the bounds of each child, reusing the rects already in the list
+   * @return number of children found, the lists may hold more items from a previous call
+   */
+  public static int collectClickableChildren(View header, List<View> children, List<Rect> bounds) {
+    return collectClickableChildren(header, 0, 0, children, bounds, 0);
+  }
+
+  private static int collectClickableChildren(View view, int left, int top, List<View> children, List<Rect> bounds, int count) {
+    if (!(view instanceof ViewGroup)) {
+      return count;
+    }
+
+    ViewGroup group = (ViewGroup) view;
+    for (int i = 0; i < group.getChildCount(); i++) {
+      View child = group.getChildAt(i);
+      if (child.getVisibility() != View.VISIBLE) {
+        continue;
+      }
+
+      int childLeft = left + child.getLeft() - group.getScrollX();
+      int childTop = top + child.getTop() - group.getScrollY();
+
+      if (child.isClickable() && child.isEnabled()) {
+        if (count < children.size()) {
+          children.set(count, child);
+          bounds.get(count).set(childLeft, childTop, childLeft + child.getWidth(), childTop + child.getHeight());
+        } else {
+          children.add(child);
+          bounds.add(new Rect(childLeft, childTop, childLeft + child.getWidth(), childTop + child.getHeight()));
+        }
+        count++;
+      }
+
+      count = collectClickableChildren(child, childLeft, childTop, children, bounds, count);
+    }
+
+    return count;
+  }
+
+  /**
+   * @return the content description of the view, or the text of the text views it contains
+   */
+  public static CharSequence getAccessibilityText(View view) {
+    if (view.getContentDescription() != null) {
+      return view.getContentDescription();
+    }
+
+    StringBuilder text = new StringBuilder();
+    appendText(view, text);
+    return text.length() > 0 ? text.toString() : null;
+  }
+
+  private static void appendText(View view, StringBuilder text) {
+    if (view.getVisibility() != View.VISIBLE) {
+      return;
+    }
+
+    CharSequence viewText = view.getContentDescription();
+    if (viewText == null && view instanceof TextView) {
+      viewText = ((TextView) view).getText();
+    }
+
+    if (viewText != null && viewText.length() > 0) {
+      if (text.length() > 0) {
+        text.append(", ");
+      }
+      text.append(viewText);
+    } else if (view instanceof ViewGroup) {
+      ViewGroup group = (ViewGroup) view;
+      for (int i = 0; i < group.getChildCount(); i++) {
+        appendText(group.getChildAt(i), text);
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.timehop.stickyheadersrecyclerview.util;
+
+import android.view.View;
+
+/**
+ * What the decorations need to know about the LayoutManager of a RecyclerView: its scroll axis,
+ * whether it is reversed, its spans and which items are at the edges of the list.
+ * <p>
+ * {@link LayoutManagerOrientationProvider} resolves an implementation once per LayoutManager, for
+ * {@link android.support.v7.widget.LinearLayoutManager},
+ * {@link android.support.v7.widget.GridLayoutManager} and
+ * {@link android.support.v7.widget.StaggeredGridLayoutManager}. Custom LayoutManagers, like a
+ * carousel, can implement this interface themselves to be used as is. The others are handled by
+ * {@link GenericLayoutInfo}, which only relies on the children of the LayoutManager.
+ */
+public interface LayoutInfo {
+
+  /**
+   * @return {@link android.widget.LinearLayout#VERTICAL} or
+   * {@link android.widget.LinearLayout#HORIZONTAL}, the axis the list scrolls along
+   */
+  int getOrientation();
+
+  /**
+   * @return true if the items are laid out from the bottom (or right) of the list
+   */
+  boolean isReverseLayout();
+
+  /**
+   * @return number of spans of a grid, 1 for a list
+   */
+  int getSpanCount();
+
+  /**
+   * @return number of spans taken by the item at the position, at most {@link #getSpanCount()}
+   */
+  int getSpanSize(int position);
+
+  /**
+   * @return span of a laid out item, 0 for layouts without spans
+   */
+  int getSpanIndex(View child);
+
+  /**
+   * @return adapter position of the item at the top (or left) of the list, the one whose header
+   * is pinned, or {@link android.support.v7.widget.RecyclerView#NO_POSITION} if there is none
+   */
+  int findStartAnchorPosition();
+
+  /**
+   * @return adapter position of the item at the bottom (or right) of the list, the one whose footer
+   * is pinned, or {@link android.support.v7.widget.RecyclerView#NO_POSITION} if there is none
+   */
+  int findEndAnchorPosition();
+}
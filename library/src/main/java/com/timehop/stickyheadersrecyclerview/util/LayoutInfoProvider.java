@@ -0,0 +1,16 @@
+package com.timehop.stickyheadersrecyclerview.util;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * Interface for getting the {@link LayoutInfo} of a RecyclerView. An {@link OrientationProvider}
+ * that does not implement it gets the layout info resolved from the LayoutManager, see
+ * {@link LayoutManagerOrientationProvider#asLayoutInfoProvider(OrientationProvider)}.
+ */
+public interface LayoutInfoProvider {
+
+  /**
+   * @return the layout of the RecyclerView, see {@link LayoutInfo}
+   */
+  public LayoutInfo getLayoutInfo(RecyclerView recyclerView);
+}
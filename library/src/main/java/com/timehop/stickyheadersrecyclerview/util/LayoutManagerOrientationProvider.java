@@ -1,43 +1,74 @@
 package com.timehop.stickyheadersrecyclerview.util;
 
+import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 
 /**
- * OrientationProvider for ReyclerViews who use a LayoutManager
+ * OrientationProvider for ReyclerViews who use a LayoutManager. The {@link LayoutInfo} of the
+ * LayoutManager is resolved once and kept until the RecyclerView gets another LayoutManager.
  */
-public class LayoutManagerOrientationProvider implements OrientationProvider {
+public class LayoutManagerOrientationProvider implements OrientationProvider, LayoutInfoProvider {
+
+  private RecyclerView.LayoutManager mLayoutManager;
+  private LayoutInfo mLayoutInfo;
 
   public static int getRecyclerViewOrientation(RecyclerView recyclerView) {
-    RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
-    if (layoutManager instanceof LinearLayoutManager) {
-      return ((LinearLayoutManager) layoutManager).getOrientation();
-    } else if (layoutManager instanceof StaggeredGridLayoutManager) {
-      return ((StaggeredGridLayoutManager) layoutManager).getOrientation();
-    } else {
-      throw new IllegalStateException("DividerDecoration can only be used with a valid LayoutManager: " + layoutManager.getClass().getSimpleName());
-    }
+    return createLayoutInfo(recyclerView.getLayoutManager()).getOrientation();
   }
 
   public boolean isRecyclerViewReverseLayout(RecyclerView recyclerView) {
-    RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
-    if (layoutManager instanceof LinearLayoutManager) {
-      return ((LinearLayoutManager) layoutManager).getReverseLayout();
+    return getLayoutInfo(recyclerView).isReverseLayout();
+  }
+
+  /**
+   * @return the layout info implemented by the LayoutManager, or the one for its class
+   */
+  public static LayoutInfo createLayoutInfo(RecyclerView.LayoutManager layoutManager) {
+    if (layoutManager instanceof LayoutInfo) {
+      return (LayoutInfo) layoutManager;
+    } else if (layoutManager instanceof GridLayoutManager) {
+      return new GridLayoutInfo((GridLayoutManager) layoutManager);
+    } else if (layoutManager instanceof LinearLayoutManager) {
+      return new LinearLayoutInfo((LinearLayoutManager) layoutManager);
     } else if (layoutManager instanceof StaggeredGridLayoutManager) {
-      return ((StaggeredGridLayoutManager) layoutManager).getReverseLayout();
+      return new StaggeredGridLayoutInfo((StaggeredGridLayoutManager) layoutManager);
+    } else if (layoutManager != null) {
+      return new GenericLayoutInfo(layoutManager);
     } else {
-      throw new IllegalStateException("DividerDecoration can only be used with a valid LayoutManager: " + layoutManager.getClass().getSimpleName());
+      throw new IllegalStateException("The RecyclerView has no LayoutManager");
     }
   }
 
+  /**
+   * @return the orientation provider itself if it provides layout infos, or a provider resolving
+   * them from the LayoutManager otherwise
+   */
+  public static LayoutInfoProvider asLayoutInfoProvider(OrientationProvider orientationProvider) {
+    if (orientationProvider instanceof LayoutInfoProvider) {
+      return (LayoutInfoProvider) orientationProvider;
+    }
+    return new LayoutManagerOrientationProvider();
+  }
+
   @Override
   public int getOrientation(RecyclerView recyclerView) {
-    return getRecyclerViewOrientation(recyclerView);
+    return getLayoutInfo(recyclerView).getOrientation();
   }
 
   @Override
   public boolean isReverseLayout(RecyclerView recyclerView) {
-    return isRecyclerViewReverseLayout(recyclerView);
+    return getLayoutInfo(recyclerView).isReverseLayout();
+  }
+
+  @Override
+  public LayoutInfo getLayoutInfo(RecyclerView recyclerView) {
+    RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+    if (layoutManager != mLayoutManager || mLayoutInfo == null) {
+      mLayoutInfo = createLayoutInfo(layoutManager);
+      mLayoutManager = layoutManager;
+    }
+    return mLayoutInfo;
   }
 }
@@ -0,0 +1,51 @@
+package com.timehop.stickyheadersrecyclerview.util;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.view.View;
+
+/**
+ * {@link LayoutInfo} of a {@link LinearLayoutManager}
+ */
+public class LinearLayoutInfo implements LayoutInfo {
+
+  private final LinearLayoutManager mLayoutManager;
+
+  public LinearLayoutInfo(LinearLayoutManager layoutManager) {
+    mLayoutManager = layoutManager;
+  }
+
+  @Override
+  public int getOrientation() {
+    return mLayoutManager.getOrientation();
+  }
+
+  @Override
+  public boolean isReverseLayout() {
+    return mLayoutManager.getReverseLayout();
+  }
+
+  @Override
+  public int getSpanCount() {
+    return 1;
+  }
+
+  @Override
+  public int getSpanSize(int position) {
+    return 1;
+  }
+
+  @Override
+  public int getSpanIndex(View child) {
+    return 0;
+  }
+
+  @Override
+  public int findStartAnchorPosition() {
+    return isReverseLayout() ? mLayoutManager.findLastVisibleItemPosition() : mLayoutManager.findFirstVisibleItemPosition();
+  }
+
+  @Override
+  public int findEndAnchorPosition() {
+    return isReverseLayout() ? mLayoutManager.findFirstVisibleItemPosition() : mLayoutManager.findLastVisibleItemPosition();
+  }
+}
@@ -0,0 +1,83 @@
+package com.timehop.stickyheadersrecyclerview.util;
+
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+
+/**
+ * {@link LayoutInfo} of a {@link StaggeredGridLayoutManager}. The items at the edges of the list
+ * are the first and last visible ones over all the spans.
+ */
+public class StaggeredGridLayoutInfo implements LayoutInfo {
+
+  private final StaggeredGridLayoutManager mLayoutManager;
+  private int[] mSpanPositions;
+
+  public StaggeredGridLayoutInfo(StaggeredGridLayoutManager layoutManager) {
+    mLayoutManager = layoutManager;
+  }
+
+  @Override
+  public int getOrientation() {
+    return mLayoutManager.getOrientation();
+  }
+
+  @Override
+  public boolean isReverseLayout() {
+    return mLayoutManager.getReverseLayout();
+  }
+
+  @Override
+  public int getSpanCount() {
+    return mLayoutManager.getSpanCount();
+  }
+
+  @Override
+  public int getSpanSize(int position) {
+    return 1;
+  }
+
+  @Override
+  public int getSpanIndex(View child) {
+    return Math.max(((StaggeredGridLayoutManager.LayoutParams) child.getLayoutParams()).getSpanIndex(), 0);
+  }
+
+  @Override
+  public int findStartAnchorPosition() {
+    return isReverseLayout() ? findLastVisibleItemPosition() : findFirstVisibleItemPosition();
+  }
+
+  @Override
+  public int findEndAnchorPosition() {
+    return isReverseLayout() ? findFirstVisibleItemPosition() : findLastVisibleItemPosition();
+  }
+
+  private int findFirstVisibleItemPosition() {
+    mLayoutManager.findFirstVisibleItemPositions(getSpanPositions());
+
+    int position = RecyclerView.NO_POSITION;
+    for (int spanPosition : mSpanPositions) {
+      if (spanPosition != RecyclerView.NO_POSITION && (position == RecyclerView.NO_POSITION || spanPosition < position)) {
+        position = spanPosition;
+      }
+    }
+    return position;
+  }
+
+  private int findLastVisibleItemPosition() {
+    mLayoutManager.findLastVisibleItemPositions(getSpanPositions());
+
+    int position = RecyclerView.NO_POSITION;
+    for (int spanPosition : mSpanPositions) {
+      position = Math.max(position, spanPosition);
+    }
+    return position;
+  }
+
+  private int[] getSpanPositions() {
+    if (mSpanPositions == null || mSpanPositions.length != mLayoutManager.getSpanCount()) {
+      mSpanPositions = new int[mLayoutManager.getSpanCount()];
+    }
+    return mSpanPositions;
+  }
+}
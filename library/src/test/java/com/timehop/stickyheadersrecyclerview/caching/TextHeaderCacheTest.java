@@ -0,0 +1,152 @@
+package com.timehop.stickyheadersrecyclerview.caching;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.text.TextPaint;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.timehop.stickyheadersrecyclerview.BuildConfig;
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerTextHeadersAdapter;
+import com.timehop.stickyheadersrecyclerview.rendering.TextHeaderStyle;
+import com.timehop.stickyheadersrecyclerview.util.LayoutManagerOrientationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class TextHeaderCacheTest {
+
+  private static final int WIDTH = 100;
+  private static final int HEIGHT = 200;
+
+  private RecyclerView mRecyclerView;
+  private TextHeaderCache mCache;
+
+  @Before
+  public void setUp() {
+    TextHeadersAdapter adapter = new TextHeadersAdapter();
+    TextHeaderStyle style = new TextHeaderStyle(new TextPaint());
+    style.setBackgroundColor(Color.WHITE);
+    mCache = new TextHeaderCache(adapter, new LayoutManagerOrientationProvider(), new SectionIndex(adapter), style);
+
+    mRecyclerView = new RecyclerView(RuntimeEnvironment.application);
+    mRecyclerView.setLayoutManager(new LinearLayoutManager(RuntimeEnvironment.application));
+    mRecyclerView.setAdapter(adapter);
+    mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+  }
+
+  @Test
+  public void backgroundIsDrawnInsideTheHeader() {
+    View header = mCache.getHeader(mRecyclerView, 0);
+    assertTrue(header.getHeight() > 0 && header.getHeight() < HEIGHT);
+
+    BoundsCanvas canvas = new BoundsCanvas(header.getWidth(), header.getHeight());
+    header.draw(canvas);
+
+    assertTrue("The background was not drawn", canvas.mFilled);
+    assertFalse("Drawn outside the header", canvas.mOutside);
+  }
+
+  /**
+   * Records whether anything is filled outside of the bounds of the header
+   */
+  private static class BoundsCanvas extends Canvas {
+    private final Rect mBounds;
+    private boolean mFilled;
+    private boolean mOutside;
+
+    BoundsCanvas(int width, int height) {
+      mBounds = new Rect(0, 0, width, height);
+    }
+
+    @Override
+    public void drawColor(int color) {
+      mFilled = true;
+      mOutside = true;
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+      mFilled = true;
+      mOutside = true;
+    }
+
+    @Override
+    public void drawRect(Rect rect, Paint paint) {
+      drawRect(rect.left, rect.top, rect.right, rect.bottom, paint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+      mFilled = true;
+      mOutside |= left < mBounds.left || top < mBounds.top || right > mBounds.right || bottom > mBounds.bottom;
+    }
+  }
+
+  private static class TextHeadersAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
+      implements StickyRecyclerTextHeadersAdapter<RecyclerView.ViewHolder> {
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+      View view = new View(parent.getContext());
+      view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 40));
+      return new RecyclerView.ViewHolder(view) {
+      };
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+      // nothing to bind
+    }
+
+    @Override
+    public int getItemCount() {
+      return 10;
+    }
+
+    @Override
+    public long getHeaderId(int position) {
+      return position / 5;
+    }
+
+    @Override
+    public CharSequence getHeaderText(int position) {
+      return "Section " + position / 5;
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateHeaderViewHolder(ViewGroup parent, int position) {
+      throw new UnsupportedOperationException("Text headers have no views");
+    }
+
+    @Override
+    public void onBindHeaderViewHolder(RecyclerView.ViewHolder holder, int position) {
+      throw new UnsupportedOperationException("Text headers have no views");
+    }
+
+    @Override
+    public int getNumColumns() {
+      return 1;
+    }
+
+    @Override
+    public int getSpanSize(int position) {
+      return 1;
+    }
+  }
+}
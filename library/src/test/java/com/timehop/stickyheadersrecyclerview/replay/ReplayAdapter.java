@@ -0,0 +1,119 @@
+package com.timehop.stickyheadersrecyclerview.replay;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapter of items and headers of fixed sizes, so that the golden output of a trace can be worked
+ * out by hand. Items start in sections of {@link #SECTION_SIZE} items.
+ */
+class ReplayAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
+    implements StickyRecyclerHeadersAdapter<RecyclerView.ViewHolder>, ScrollReplayer.AdapterMutator {
+
+  static final int ITEM_HEIGHT = 40;
+  static final int HEADER_HEIGHT = 20;
+  static final int SECTION_SIZE = 5;
+
+  /**
+   * Added to the position of the first changed item to get the header id of changed items
+   */
+  static final long CHANGED_HEADER_ID = 100;
+
+  private final List<Long> mHeaderIds = new ArrayList<>();
+
+  ReplayAdapter(int itemCount) {
+    for (int i = 0; i < itemCount; i++) {
+      mHeaderIds.add((long) (i / SECTION_SIZE));
+    }
+  }
+
+  @Override
+  public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+    return createViewHolder(parent, ITEM_HEIGHT);
+  }
+
+  @Override
+  public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+    // nothing to bind
+  }
+
+  @Override
+  public int getItemCount() {
+    return mHeaderIds.size();
+  }
+
+  @Override
+  public long getHeaderId(int position) {
+    return mHeaderIds.get(position);
+  }
+
+  @Override
+  public RecyclerView.ViewHolder onCreateHeaderViewHolder(ViewGroup parent, int position) {
+    return createViewHolder(parent, HEADER_HEIGHT);
+  }
+
+  @Override
+  public void onBindHeaderViewHolder(RecyclerView.ViewHolder holder, int position) {
+    // nothing to bind
+  }
+
+  @Override
+  public int getNumColumns() {
+    return 1;
+  }
+
+  @Override
+  public int getSpanSize(int position) {
+    return 1;
+  }
+
+  /**
+   * Inserts items in the section of the item before them
+   */
+  @Override
+  public void insert(int position, int count) {
+    long headerId = mHeaderIds.get(Math.max(0, position - 1));
+    for (int i = 0; i < count; i++) {
+      mHeaderIds.add(position, headerId);
+    }
+    notifyItemRangeInserted(position, count);
+  }
+
+  @Override
+  public void remove(int position, int count) {
+    for (int i = 0; i < count; i++) {
+      mHeaderIds.remove(position);
+    }
+    notifyItemRangeRemoved(position, count);
+  }
+
+  /**
+   * Moves the changed items to a section of their own
+   */
+  @Override
+  public void change(int position, int count) {
+    for (int i = 0; i < count; i++) {
+      mHeaderIds.set(position + i, CHANGED_HEADER_ID + position);
+    }
+    notifyItemRangeChanged(position, count);
+  }
+
+  @Override
+  public void move(int fromPosition, int toPosition) {
+    mHeaderIds.add(toPosition, mHeaderIds.remove(fromPosition));
+    notifyItemMoved(fromPosition, toPosition);
+  }
+
+  private static RecyclerView.ViewHolder createViewHolder(ViewGroup parent, int height) {
+    View view = new View(parent.getContext());
+    view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, height));
+    return new RecyclerView.ViewHolder(view) {
+    };
+  }
+}
@@ -0,0 +1,107 @@
+package com.timehop.stickyheadersrecyclerview.replay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What {@link ScrollReplayer} saw on each frame of a replay: where the headers were drawn, how long
+ * the decoration took to draw and how many objects it allocated
+ */
+public class ReplayResult {
+
+  private final List<String> mFrames = new ArrayList<>();
+  private final List<Long> mDrawNanos = new ArrayList<>();
+  private final List<Integer> mAllocations = new ArrayList<>();
+
+  void addFrame(String headers, long nanos, int allocationCount) {
+    mFrames.add(headers);
+    mDrawNanos.add(nanos);
+    mAllocations.add(allocationCount);
+  }
+
+  public int getFrameCount() {
+    return mFrames.size();
+  }
+
+  /**
+   * @return the headers drawn on a frame, as "position@left,top,right,bottom" separated by spaces
+   */
+  public String getFrame(int frame) {
+    return mFrames.get(frame);
+  }
+
+  public long getDrawNanos(int frame) {
+    return mDrawNanos.get(frame);
+  }
+
+  /**
+   * @return objects allocated while the decoration drew the frame, -1 if allocations are not
+   * counted on this runtime
+   */
+  public int getAllocations(int frame) {
+    return mAllocations.get(frame);
+  }
+
+  public long getTotalDrawNanos() {
+    long total = 0;
+    for (long nanos : mDrawNanos) {
+      total += nanos;
+    }
+    return total;
+  }
+
+  /**
+   * @param percentile from 0 to 100
+   */
+  public long getDrawNanosPercentile(int percentile) {
+    if (mDrawNanos.isEmpty()) {
+      return 0;
+    }
+    List<Long> sorted = new ArrayList<>(mDrawNanos);
+    Collections.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+    return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+  }
+
+  public int getTotalAllocations() {
+    int total = 0;
+    for (int count : mAllocations) {
+      if (count > 0) {
+        total += count;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * @return the header positions of every frame, one frame per line, to be stored as a golden
+   * output and compared with {@link #diff(String)}
+   */
+  public String toGolden() {
+    StringBuilder builder = new StringBuilder();
+    for (String frame : mFrames) {
+      builder.append(frame).append('\n');
+    }
+    return builder.toString();
+  }
+
+  /**
+   * @param golden output of {@link #toGolden()} for a replay known to be correct
+   * @return description of the first frame that differs from the golden output, or null if all
+   * frames match
+   */
+  public String diff(String golden) {
+    String[] expected = golden.split("\n", -1);
+    int expectedCount = golden.endsWith("\n") ? expected.length - 1 : expected.length;
+
+    for (int i = 0; i < Math.max(expectedCount, mFrames.size()); i++) {
+      String expectedFrame = i < expectedCount ? expected[i] : "<no frame>";
+      String actualFrame = i < mFrames.size() ? mFrames.get(i) : "<no frame>";
+      if (!expectedFrame.equals(actualFrame)) {
+        return "Frame " + i + ": expected [" + expectedFrame + "] but was [" + actualFrame + "]";
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,119 @@
+package com.timehop.stickyheadersrecyclerview.replay;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.timehop.stickyheadersrecyclerview.BuildConfig;
+import com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays the traces in the test resources and compares the headers drawn on every frame with their
+ * golden output. The list is {@link #WIDTH} by {@link #HEIGHT} pixels, see {@link ReplayAdapter}
+ * for the sizes of items and headers.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class ScrollReplayTest {
+
+  private static final int WIDTH = 100;
+  private static final int HEIGHT = 200;
+  private static final int ITEM_COUNT = 30;
+
+  private RecyclerView mRecyclerView;
+  private ReplayAdapter mAdapter;
+  private StickyRecyclerHeadersDecoration mHeadersDecor;
+
+  @Before
+  public void setUp() {
+    mAdapter = new ReplayAdapter(ITEM_COUNT);
+    mHeadersDecor = new StickyRecyclerHeadersDecoration(mAdapter);
+
+    mRecyclerView = new RecyclerView(RuntimeEnvironment.application);
+    mRecyclerView.setLayoutManager(new LinearLayoutManager(RuntimeEnvironment.application));
+    // Items are laid out at their final positions right away
+    mRecyclerView.setItemAnimator(null);
+    mRecyclerView.setAdapter(mAdapter);
+    mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+  }
+
+  @Test
+  public void stickyHeaderIsPushedByNextHeader() throws IOException {
+    assertReplayMatchesGolden("scroll-push");
+  }
+
+  @Test
+  public void flingGivesTheSameFramesEveryTime() throws IOException {
+    assertReplayMatchesGolden("fling");
+  }
+
+  @Test
+  public void headersFollowChangedAndMovedItems() throws IOException {
+    assertReplayMatchesGolden("change-move");
+  }
+
+  @Test
+  public void recordsTheCostOfEveryFrame() throws IOException {
+    ReplayResult result = replay("fling");
+
+    for (int i = 0; i < result.getFrameCount(); i++) {
+      assertTrue("Frame " + i + " was not timed", result.getDrawNanos(i) > 0);
+    }
+    assertTrue(result.getDrawNanosPercentile(50) <= result.getDrawNanosPercentile(100));
+  }
+
+  @Test
+  public void parsesTraces() {
+    ScrollTrace trace = ScrollTrace.parse("# comment\n\nscroll 0 120  # down\nmove 3 0\n");
+
+    assertEquals(2, trace.getSteps().size());
+    assertEquals(ScrollTrace.Action.SCROLL, trace.getSteps().get(0).action);
+    assertEquals(120, trace.getSteps().get(0).second);
+    assertEquals("scroll 0 120\nmove 3 0\n", trace.toString());
+  }
+
+  private void assertReplayMatchesGolden(String name) throws IOException {
+    ReplayResult result = replay(name);
+    assertNull(result.diff(readResource(name + ".golden")));
+  }
+
+  private ReplayResult replay(String name) throws IOException {
+    ScrollReplayer replayer = new ScrollReplayer(mRecyclerView, mHeadersDecor, mHeadersDecor, mAdapter);
+    return replayer.replay(ScrollTrace.parse(readResource(name + ".trace")));
+  }
+
+  private String readResource(String name) throws IOException {
+    InputStream input = getClass().getClassLoader().getResourceAsStream("traces/" + name);
+    assertNotNull("Missing resource traces/" + name, input);
+
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+      }
+      return output.toString("UTF-8");
+    } finally {
+      input.close();
+    }
+  }
+}
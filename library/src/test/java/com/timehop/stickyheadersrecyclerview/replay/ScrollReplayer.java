@@ -0,0 +1,235 @@
+package com.timehop.stickyheadersrecyclerview.replay;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Debug;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration;
+
+/**
+ * Replays a {@link ScrollTrace} on a RecyclerView frame by frame, without relying on time, and
+ * records where the headers are drawn on each frame along with the cost of the decoration. Runs on
+ * the JVM under Robolectric, so that the header positions of a trace can be checked against a
+ * golden output and regressions in the cost of the decoration caught.
+ * <p>
+ * Flings are turned into a fixed sequence of scrolls, one per frame of 16ms, slowed down by
+ * {@link #FLING_FRICTION} on every frame, so a trace always gives the same frames. The RecyclerView
+ * is measured, laid out and drawn to a bitmap after every step. Only the drawing of the decoration
+ * itself is timed, as part of that frame.
+ * <p>
+ * Adapter changes are only notified to the adapter: the decoration has to follow them on its own.
+ * Item decorations are invalidated after each change, as RecyclerView only computes the offsets of
+ * the changed items again while the items around them may start or stop a section.
+ *
+ * <pre>
+ * ScrollReplayer replayer = new ScrollReplayer(recyclerView, headersDecor, headersDecor, mutator);
+ * ReplayResult result = replayer.replay(ScrollTrace.parse(trace));
+ * assertNull(result.diff(golden));
+ * </pre>
+ */
+public class ScrollReplayer {
+
+  /**
+   * Applies the adapter changes of a trace to the data of the adapter, and notifies the adapter
+   */
+  public interface AdapterMutator {
+    void insert(int position, int count);
+
+    void remove(int position, int count);
+
+    void change(int position, int count);
+
+    void move(int fromPosition, int toPosition);
+  }
+
+  public static final float FRAME_SECONDS = 0.016f;
+  public static final float FLING_FRICTION = 0.9f;
+  public static final int MIN_FLING_VELOCITY = 50;
+
+  private final RecyclerView mRecyclerView;
+  private final StickyRecyclerHeadersDecoration mHeadersDecor;
+  private final AdapterMutator mMutator;
+  private final TimedDecoration mTimedDecoration;
+  private final StringBuilder mFrameBuilder = new StringBuilder();
+
+  private Canvas mCanvas;
+  private Bitmap mBitmap;
+
+  /**
+   * @param recyclerView the RecyclerView to replay on, with its adapter and layout manager set and
+   *                     a size given by {@link View#layout} or its parent
+   * @param decoration   the decoration to time, added to the RecyclerView by the replayer. Usually
+   *                     the headers decoration or a composite containing it.
+   * @param headersDecor the headers decoration, whose drawn headers are recorded
+   * @param mutator      to apply adapter changes, may be null if the trace has none
+   */
+  public ScrollReplayer(RecyclerView recyclerView, RecyclerView.ItemDecoration decoration, StickyRecyclerHeadersDecoration headersDecor, AdapterMutator mutator) {
+    mRecyclerView = recyclerView;
+    mHeadersDecor = headersDecor;
+    mMutator = mutator;
+    mTimedDecoration = new TimedDecoration(decoration);
+    recyclerView.addItemDecoration(mTimedDecoration);
+  }
+
+  public ReplayResult replay(ScrollTrace trace) {
+    ReplayResult result = new ReplayResult();
+
+    // The initial layout is a frame of its own
+    frame(result);
+
+    for (ScrollTrace.Step step : trace.getSteps()) {
+      switch (step.action) {
+        case SCROLL:
+          mRecyclerView.scrollBy(step.first, step.second);
+          frame(result);
+          break;
+        case FLING:
+          fling(result, step.first, step.second);
+          break;
+        case INSERT:
+          mMutator.insert(step.first, step.second);
+          mRecyclerView.invalidateItemDecorations();
+          frame(result);
+          break;
+        case REMOVE:
+          mMutator.remove(step.first, step.second);
+          mRecyclerView.invalidateItemDecorations();
+          frame(result);
+          break;
+        case CHANGE:
+          mMutator.change(step.first, step.second);
+          mRecyclerView.invalidateItemDecorations();
+          frame(result);
+          break;
+        case MOVE:
+          mMutator.move(step.first, step.second);
+          mRecyclerView.invalidateItemDecorations();
+          frame(result);
+          break;
+      }
+    }
+
+    return result;
+  }
+
+  private void fling(ReplayResult result, int velocityX, int velocityY) {
+    float vx = velocityX;
+    float vy = velocityY;
+    float remainderX = 0;
+    float remainderY = 0;
+
+    while (Math.abs(vx) >= MIN_FLING_VELOCITY || Math.abs(vy) >= MIN_FLING_VELOCITY) {
+      remainderX += vx * FRAME_SECONDS;
+      remainderY += vy * FRAME_SECONDS;
+      int dx = (int) remainderX;
+      int dy = (int) remainderY;
+      remainderX -= dx;
+      remainderY -= dy;
+
+      mRecyclerView.scrollBy(dx, dy);
+      frame(result);
+
+      vx *= FLING_FRICTION;
+      vy *= FLING_FRICTION;
+    }
+  }
+
+  private void frame(ReplayResult result) {
+    int width = mRecyclerView.getWidth();
+    int height = mRecyclerView.getHeight();
+
+    // Runs the layout passes requested by scrolls and adapter changes, as a frame would
+    mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+    mRecyclerView.layout(mRecyclerView.getLeft(), mRecyclerView.getTop(), mRecyclerView.getLeft() + width, mRecyclerView.getTop() + height);
+
+    mTimedDecoration.reset();
+    mRecyclerView.draw(getCanvas(width, height));
+
+    result.addFrame(describeHeaders(), mTimedDecoration.mNanos, mTimedDecoration.mAllocationCount);
+  }
+
+  private Canvas getCanvas(int width, int height) {
+    width = Math.max(1, width);
+    height = Math.max(1, height);
+    if (mBitmap == null || mBitmap.getWidth() != width || mBitmap.getHeight() != height) {
+      mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      mCanvas = new Canvas(mBitmap);
+    }
+    return mCanvas;
+  }
+
+  private String describeHeaders() {
+    mFrameBuilder.setLength(0);
+    for (int i = 0; i < mHeadersDecor.getDrawnHeaderCount(); i++) {
+      int position = mHeadersDecor.getDrawnHeaderPosition(i);
+      Rect bounds = mHeadersDecor.getDrawnHeaderBounds(position);
+      if (i > 0) {
+        mFrameBuilder.append(' ');
+      }
+      mFrameBuilder.append(position).append('@')
+          .append(bounds.left).append(',').append(bounds.top).append(',')
+          .append(bounds.right).append(',').append(bounds.bottom);
+    }
+    return mFrameBuilder.toString();
+  }
+
+  /**
+   * Wraps the decoration to time the drawing it does as part of the frame, instead of drawing it
+   * once more on its own, which would be warm and would count frames twice
+   */
+  private static class TimedDecoration extends RecyclerView.ItemDecoration {
+    private final RecyclerView.ItemDecoration mDecoration;
+    private long mNanos;
+    private int mAllocationCount;
+
+    TimedDecoration(RecyclerView.ItemDecoration decoration) {
+      mDecoration = decoration;
+    }
+
+    void reset() {
+      mNanos = 0;
+      mAllocationCount = -1;
+    }
+
+    @Override
+    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+      mDecoration.getItemOffsets(outRect, view, parent, state);
+    }
+
+    @Override
+    public void onDraw(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+      mDecoration.onDraw(canvas, parent, state);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+      boolean countAllocations = startAllocCounting();
+      long start = System.nanoTime();
+      mDecoration.onDrawOver(canvas, parent, state);
+      mNanos = System.nanoTime() - start;
+      if (countAllocations) {
+        mAllocationCount = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+      }
+    }
+
+    /**
+     * @return false if allocations are not counted on this runtime
+     */
+    @SuppressWarnings("deprecation")
+    private static boolean startAllocCounting() {
+      try {
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        return true;
+      } catch (RuntimeException | LinkageError e) {
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.timehop.stickyheadersrecyclerview.replay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A recorded sequence of scrolls, flings and adapter changes, replayed by {@link ScrollReplayer}.
+ * Traces are plain text, one step per line:
+ *
+ * <pre>
+ * # comments and blank lines are ignored
+ * scroll 0 120        # scroll by dx dy pixels
+ * fling 0 -4000       # fling at vx vy pixels per second
+ * insert 0 20         # insert count items at a position
+ * remove 10 3         # remove count items at a position
+ * change 5 1          # change count items at a position
+ * move 3 0            # move the item at a position to another one
+ * </pre>
+ */
+public class ScrollTrace {
+
+  public enum Action {
+    SCROLL, FLING, INSERT, REMOVE, CHANGE, MOVE
+  }
+
+  public static class Step {
+    public final Action action;
+    public final int first;
+    public final int second;
+
+    public Step(Action action, int first, int second) {
+      this.action = action;
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public String toString() {
+      return action.name().toLowerCase() + " " + first + " " + second;
+    }
+  }
+
+  private final List<Step> mSteps;
+
+  public ScrollTrace(List<Step> steps) {
+    mSteps = Collections.unmodifiableList(new ArrayList<>(steps));
+  }
+
+  public List<Step> getSteps() {
+    return mSteps;
+  }
+
+  /**
+   * @throws IllegalArgumentException if a line is not a valid step
+   */
+  public static ScrollTrace parse(String trace) {
+    List<Step> steps = new ArrayList<>();
+    String[] lines = trace.split("\n");
+
+    for (int i = 0; i < lines.length; i++) {
+      String line = lines[i];
+      int comment = line.indexOf('#');
+      if (comment != -1) {
+        line = line.substring(0, comment);
+      }
+      line = line.trim();
+      if (line.length() == 0) {
+        continue;
+      }
+
+      String[] parts = line.split("\\s+");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("Line " + (i + 1) + ": expected an action and two numbers: " + line);
+      }
+
+      try {
+        Action action = Action.valueOf(parts[0].toUpperCase());
+        steps.add(new Step(action, Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Line " + (i + 1) + ": invalid step: " + line, e);
+      }
+    }
+
+    return new ScrollTrace(steps);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Step step : mSteps) {
+      builder.append(step).append('\n');
+    }
+    return builder.toString();
+  }
+}
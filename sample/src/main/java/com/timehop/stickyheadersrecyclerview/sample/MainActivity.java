@@ -2,8 +2,11 @@ package com.timehop.stickyheadersrecyclerview.sample;
 
 import android.content.pm.ActivityInfo;
 import android.content.res.Resources;
+import android.content.res.TypedArray;
 import android.graphics.Color;
 import android.graphics.Rect;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -21,9 +24,12 @@ import android.widget.TextView;
 import android.widget.Toast;
 import android.widget.ToggleButton;
 
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAccessibilityHelper;
 import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
 import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersPositionChangeListener;
 import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersTouchListener;
+import com.timehop.stickyheadersrecyclerview.decorators.CompositeDecoration;
+import com.timehop.stickyheadersrecyclerview.decorators.DividerDecoration;
 import com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration;
 
 import java.security.SecureRandom;
@@ -79,9 +85,14 @@ public class MainActivity extends AppCompatActivity {
       }
     });
 
-    // Add the sticky headers decoration
+    // Add the sticky headers and the dividers between list items as a single decoration
     final StickyRecyclerHeadersDecoration headersDecor = new StickyRecyclerHeadersDecoration(adapter, true);
-    recyclerView.addItemDecoration(headersDecor);
+
+    CompositeDecoration decoration = new CompositeDecoration();
+    decoration.setSectionIndex(headersDecor.getSectionIndex());
+    decoration.addPlugin(createListDivider());
+    decoration.addPlugin(headersDecor);
+    recyclerView.addItemDecoration(decoration);
 
     headersDecor.setHeaderPositionListener(new StickyRecyclerHeadersPositionChangeListener() {
       @Override
@@ -95,19 +106,23 @@ public class MainActivity extends AppCompatActivity {
       }
     });
 
-    // Add decoration for dividers between list items
-    recyclerView.addItemDecoration(new DividerDecoration(this));
-
     // Add touch listeners
+    StickyRecyclerHeadersTouchListener.OnHeaderClickListener headerClickListener = new StickyRecyclerHeadersTouchListener.OnHeaderClickListener() {
+      @Override
+      public void onHeaderClick(View header, int position, long headerId) {
+        CharSequence headerStr = ((TextView) header.findViewById(R.id.header_text)).getText();
+
+        Toast.makeText(MainActivity.this, "Header: " + headerStr + ", Header Position: " + position + ", ID: " + headerId, Toast.LENGTH_SHORT).show();
+      }
+    };
+
     StickyRecyclerHeadersTouchListener touchListener = new StickyRecyclerHeadersTouchListener(recyclerView, headersDecor);
-    touchListener.setOnHeaderClickListener(new StickyRecyclerHeadersTouchListener.OnHeaderClickListener() {
-          @Override
-          public void onHeaderClick(View header, int position, long headerId) {
-            CharSequence headerStr = ((TextView) header.findViewById(R.id.header_text)).getText();
+    touchListener.setOnHeaderClickListener(headerClickListener);
 
-            Toast.makeText(MainActivity.this, "Header: " + headerStr + ", Header Position: " + position + ", ID: " + headerId, Toast.LENGTH_SHORT).show();
-          }
-        });
+    // Make the headers available to accessibility services
+    StickyRecyclerHeadersAccessibilityHelper accessibilityHelper = new StickyRecyclerHeadersAccessibilityHelper(recyclerView, headersDecor);
+    accessibilityHelper.setOnHeaderClickListener(headerClickListener);
+    accessibilityHelper.attach();
 
     recyclerView.addOnItemTouchListener(touchListener);
     recyclerView.addOnItemTouchListener(new RecyclerItemClickListener(this, new RecyclerItemClickListener.OnItemClickListener() {
@@ -136,6 +151,23 @@ public class MainActivity extends AppCompatActivity {
     });
   }
 
+  /**
+   * Creates a divider looking like the list divider of the theme
+   */
+  private DividerDecoration createListDivider() {
+    TypedArray a = obtainStyledAttributes(new int[]{android.R.attr.listDivider, android.R.attr.colorForeground});
+    Drawable listDivider = a.getDrawable(0);
+    // The list divider of the platform themes is their foreground color at 12% opacity
+    int color = (a.getColor(1, Color.BLACK) & 0x00FFFFFF) | 0x1F000000;
+    a.recycle();
+
+    if (listDivider instanceof ColorDrawable) {
+      color = ((ColorDrawable) listDivider).getColor();
+    }
+    int thickness = listDivider != null ? Math.max(1, listDivider.getIntrinsicHeight()) : 1;
+    return new DividerDecoration(color, thickness);
+  }
+
   private String[] getDummyDataSet() {
     return getResources().getStringArray(R.array.animals);
   }
@@ -0,0 +1,259 @@
+package com.timehop.stickyheadersrecyclerview.sample.benchmark;
+
+import android.annotation.TargetApi;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.ViewConfiguration;
+import android.view.Window;
+import android.widget.TextView;
+
+import com.timehop.stickyheadersrecyclerview.decorators.StickyRecyclerHeadersDecoration;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs scripted flings on lists of every {@link BenchmarkScenario} one after another, collects the
+ * duration of every frame with {@link FrameMetrics} and writes the jank percentiles of each scenario
+ * to {@code benchmark.json} in the external files directory of the app. Scenarios can be filtered
+ * with extras:
+ *
+ * <pre>
+ * adb shell am start -n com.timehop.stickyheadersrecyclerview.sample/.benchmark.BenchmarkActivity \
+ *     --ei itemCount 100000 --ei columns 4 --es orientation vertical \
+ *     --es reverse false --es heavy true --es anchors true
+ * adb pull /sdcard/Android/data/com.timehop.stickyheadersrecyclerview.sample/files/benchmark.json
+ * </pre>
+ *
+ * Frame metrics need API 24, older devices only get the scenarios in the output.
+ */
+public class BenchmarkActivity extends AppCompatActivity {
+
+  private static final String TAG = BenchmarkActivity.class.getSimpleName();
+
+  public static final String EXTRA_ITEM_COUNT = "itemCount";
+  public static final String EXTRA_COLUMNS = "columns";
+  public static final String EXTRA_ORIENTATION = "orientation";
+  public static final String EXTRA_REVERSE = "reverse";
+  public static final String EXTRA_HEAVY = "heavy";
+  public static final String EXTRA_ANCHORS = "anchors";
+
+  private static final int FLINGS_FORWARD = 4;
+  private static final int FLINGS_BACKWARD = 2;
+  private static final long FLING_INTERVAL_MS = 2000;
+  private static final long SETTLE_MS = 1000;
+  private static final int ITEM_SIZE_DP = 48;
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final JSONArray results = new JSONArray();
+  private List<BenchmarkScenario> scenarios;
+  private HandlerThread metricsThread;
+  private Object frameMetricsListener;
+
+  private volatile FrameStats currentStats;
+  private RecyclerView recyclerView;
+
+  @Override
+  protected void onCreate(Bundle savedInstanceState) {
+    super.onCreate(savedInstanceState);
+
+    scenarios = filterScenarios(getIntent());
+    Log.i(TAG, "Running " + scenarios.size() + " scenarios");
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+      addFrameMetricsListener();
+    }
+
+    runScenario(0);
+  }
+
+  @Override
+  protected void onDestroy() {
+    handler.removeCallbacksAndMessages(null);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && frameMetricsListener != null) {
+      removeFrameMetricsListener();
+    }
+    if (metricsThread != null) {
+      metricsThread.quit();
+    }
+    super.onDestroy();
+  }
+
+  private static List<BenchmarkScenario> filterScenarios(Intent intent) {
+    int itemCount = intent.getIntExtra(EXTRA_ITEM_COUNT, -1);
+    int columns = intent.getIntExtra(EXTRA_COLUMNS, -1);
+    String orientationExtra = intent.getStringExtra(EXTRA_ORIENTATION);
+    int orientation = orientationExtra == null ? -1
+        : "horizontal".equals(orientationExtra) ? LinearLayoutManager.HORIZONTAL : LinearLayoutManager.VERTICAL;
+    Boolean reverse = getBooleanExtra(intent, EXTRA_REVERSE);
+    Boolean heavy = getBooleanExtra(intent, EXTRA_HEAVY);
+    Boolean anchors = getBooleanExtra(intent, EXTRA_ANCHORS);
+
+    List<BenchmarkScenario> scenarios = new ArrayList<BenchmarkScenario>();
+    for (BenchmarkScenario scenario : BenchmarkScenario.all()) {
+      if (scenario.matches(itemCount, columns, orientation, reverse, heavy, anchors)) {
+        scenarios.add(scenario);
+      }
+    }
+    return scenarios;
+  }
+
+  private static Boolean getBooleanExtra(Intent intent, String name) {
+    String value = intent.getStringExtra(name);
+    return value == null ? null : Boolean.valueOf(value);
+  }
+
+  private void runScenario(final int index) {
+    if (index == scenarios.size()) {
+      export();
+      return;
+    }
+
+    final BenchmarkScenario scenario = scenarios.get(index);
+    Log.i(TAG, "Scenario " + (index + 1) + "/" + scenarios.size() + ": " + scenario);
+
+    int itemSizePx = Math.round(ITEM_SIZE_DP * getResources().getDisplayMetrics().density);
+    BenchmarkAdapter adapter = new BenchmarkAdapter(scenario, itemSizePx);
+
+    StickyRecyclerHeadersDecoration headersDecor = new StickyRecyclerHeadersDecoration(adapter);
+    headersDecor.setUseLayoutAnchors(scenario.layoutAnchors);
+
+    GridLayoutManager layoutManager = new GridLayoutManager(this, scenario.columns, scenario.orientation, scenario.reverseLayout);
+    // Start in the middle, so there is room to fling both ways
+    int sectionSize = BenchmarkAdapter.SECTION_ROWS * scenario.columns;
+    layoutManager.scrollToPosition(scenario.itemCount / 2 / sectionSize * sectionSize);
+
+    recyclerView = new RecyclerView(this);
+    recyclerView.setLayoutManager(layoutManager);
+    recyclerView.setAdapter(adapter);
+    recyclerView.addItemDecoration(headersDecor);
+    setContentView(recyclerView);
+
+    final FrameStats stats = new FrameStats();
+    handler.postDelayed(new Runnable() {
+      @Override
+      public void run() {
+        currentStats = stats;
+        fling(0);
+      }
+    }, SETTLE_MS);
+
+    handler.postDelayed(new Runnable() {
+      @Override
+      public void run() {
+        currentStats = null;
+        recyclerView.stopScroll();
+        addResult(scenario, stats);
+        runScenario(index + 1);
+      }
+    }, SETTLE_MS + (FLINGS_FORWARD + FLINGS_BACKWARD) * FLING_INTERVAL_MS);
+  }
+
+  private void fling(final int count) {
+    if (count == FLINGS_FORWARD + FLINGS_BACKWARD) {
+      return;
+    }
+
+    int velocity = ViewConfiguration.get(this).getScaledMaximumFlingVelocity();
+    if (count >= FLINGS_FORWARD) {
+      velocity = -velocity;
+    }
+
+    if (recyclerView.getLayoutManager().canScrollVertically()) {
+      recyclerView.fling(0, velocity);
+    } else {
+      recyclerView.fling(velocity, 0);
+    }
+
+    handler.postDelayed(new Runnable() {
+      @Override
+      public void run() {
+        fling(count + 1);
+      }
+    }, FLING_INTERVAL_MS);
+  }
+
+  private void addResult(BenchmarkScenario scenario, FrameStats stats) {
+    try {
+      JSONObject result = scenario.toJson();
+      result.put("stats", stats.toJson());
+      results.put(result);
+    } catch (JSONException e) {
+      Log.e(TAG, "Could not add the result of " + scenario, e);
+    }
+  }
+
+  private void export() {
+    TextView message = new TextView(this);
+    setContentView(message);
+
+    File file = new File(getExternalFilesDir(null), "benchmark.json");
+    Writer writer = null;
+    try {
+      JSONObject json = new JSONObject();
+      json.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+      json.put("sdk", Build.VERSION.SDK_INT);
+      json.put("frameMetrics", frameMetricsListener != null);
+      json.put("scenarios", results);
+
+      writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+      writer.write(json.toString(2));
+
+      Log.i(TAG, "Results written to " + file);
+      message.setText("Results written to " + file);
+    } catch (IOException | JSONException e) {
+      Log.e(TAG, "Could not write the results", e);
+      message.setText("Could not write the results: " + e);
+    } finally {
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (IOException e) {
+          // ignore
+        }
+      }
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.N)
+  private void addFrameMetricsListener() {
+    metricsThread = new HandlerThread("FrameMetrics");
+    metricsThread.start();
+
+    Window.OnFrameMetricsAvailableListener listener = new Window.OnFrameMetricsAvailableListener() {
+      @Override
+      public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        FrameStats stats = currentStats;
+        if (stats != null) {
+          stats.addFrame(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION));
+        }
+      }
+    };
+    getWindow().addOnFrameMetricsAvailableListener(listener, new Handler(metricsThread.getLooper()));
+    frameMetricsListener = listener;
+  }
+
+  @TargetApi(Build.VERSION_CODES.N)
+  private void removeFrameMetricsListener() {
+    getWindow().removeOnFrameMetricsAvailableListener((Window.OnFrameMetricsAvailableListener) frameMetricsListener);
+  }
+}
@@ -0,0 +1,119 @@
+package com.timehop.stickyheadersrecyclerview.sample.benchmark;
+
+import android.graphics.Color;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.timehop.stickyheadersrecyclerview.StickyRecyclerHeadersAdapter;
+
+/**
+ * Adapter of generated items, so that lists of a million items don't hold any data. Every section
+ * has {@link #SECTION_ROWS} full rows. Light headers are a single text, heavy headers a small
+ * hierarchy of texts, like the headers of a real app.
+ */
+public class BenchmarkAdapter extends RecyclerView.Adapter<BenchmarkAdapter.TextHolder>
+    implements StickyRecyclerHeadersAdapter<BenchmarkAdapter.TextHolder> {
+
+  public static final int SECTION_ROWS = 10;
+
+  private final BenchmarkScenario scenario;
+  private final int itemSizePx;
+
+  public BenchmarkAdapter(BenchmarkScenario scenario, int itemSizePx) {
+    this.scenario = scenario;
+    this.itemSizePx = itemSizePx;
+  }
+
+  @Override
+  public TextHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+    TextView textView = new TextView(parent.getContext());
+    textView.setGravity(Gravity.CENTER);
+    if (isVertical()) {
+      textView.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, itemSizePx));
+    } else {
+      textView.setLayoutParams(new RecyclerView.LayoutParams(itemSizePx, ViewGroup.LayoutParams.MATCH_PARENT));
+    }
+    return new TextHolder(textView, textView);
+  }
+
+  @Override
+  public void onBindViewHolder(TextHolder holder, int position) {
+    holder.textView.setText(String.valueOf(position));
+  }
+
+  @Override
+  public int getItemCount() {
+    return scenario.itemCount;
+  }
+
+  @Override
+  public long getHeaderId(int position) {
+    return position / (SECTION_ROWS * scenario.columns);
+  }
+
+  @Override
+  public TextHolder onCreateHeaderViewHolder(ViewGroup parent, int position) {
+    TextView title = createText(parent, 18);
+    if (!scenario.heavyHeaders) {
+      title.setBackgroundColor(Color.LTGRAY);
+      return new TextHolder(title, title);
+    }
+
+    LinearLayout header = new LinearLayout(parent.getContext());
+    header.setOrientation(LinearLayout.VERTICAL);
+    header.setBackgroundColor(Color.LTGRAY);
+    header.addView(title);
+    for (int row = 0; row < 2; row++) {
+      LinearLayout details = new LinearLayout(parent.getContext());
+      details.setOrientation(LinearLayout.HORIZONTAL);
+      for (int column = 0; column < 3; column++) {
+        TextView detail = createText(parent, 12);
+        detail.setText("Detail " + row + "." + column);
+        details.addView(detail, new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 1));
+      }
+      header.addView(details);
+    }
+    return new TextHolder(header, title);
+  }
+
+  @Override
+  public void onBindHeaderViewHolder(TextHolder holder, int position) {
+    holder.textView.setText("Section " + getHeaderId(position));
+  }
+
+  @Override
+  public int getNumColumns() {
+    return scenario.columns;
+  }
+
+  @Override
+  public int getSpanSize(int position) {
+    return 1;
+  }
+
+  private boolean isVertical() {
+    return scenario.orientation == LinearLayoutManager.VERTICAL;
+  }
+
+  private TextView createText(ViewGroup parent, int textSizeSp) {
+    TextView textView = new TextView(parent.getContext());
+    textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, textSizeSp);
+    textView.setPadding(16, 8, 16, 8);
+    return textView;
+  }
+
+  public static class TextHolder extends RecyclerView.ViewHolder {
+    final TextView textView;
+
+    TextHolder(View itemView, TextView textView) {
+      super(itemView);
+      this.textView = textView;
+    }
+  }
+}
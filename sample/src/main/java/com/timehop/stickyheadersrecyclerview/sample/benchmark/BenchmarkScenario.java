@@ -0,0 +1,92 @@
+package com.timehop.stickyheadersrecyclerview.sample.benchmark;
+
+import android.support.v7.widget.LinearLayoutManager;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One configuration of the list benchmarked by {@link BenchmarkActivity}
+ */
+public class BenchmarkScenario {
+
+  public static final int[] ITEM_COUNTS = {10000, 100000, 1000000};
+  public static final int[] COLUMNS = {1, 2, 4, 8};
+  public static final int[] ORIENTATIONS = {LinearLayoutManager.VERTICAL, LinearLayoutManager.HORIZONTAL};
+  public static final boolean[] REVERSE_LAYOUTS = {false, true};
+  public static final boolean[] HEAVY_HEADERS = {false, true};
+  public static final boolean[] LAYOUT_ANCHORS = {false, true};
+
+  public final int itemCount;
+  public final int columns;
+  public final int orientation;
+  public final boolean reverseLayout;
+  public final boolean heavyHeaders;
+  public final boolean layoutAnchors;
+
+  public BenchmarkScenario(int itemCount, int columns, int orientation, boolean reverseLayout, boolean heavyHeaders, boolean layoutAnchors) {
+    this.itemCount = itemCount;
+    this.columns = columns;
+    this.orientation = orientation;
+    this.reverseLayout = reverseLayout;
+    this.heavyHeaders = heavyHeaders;
+    this.layoutAnchors = layoutAnchors;
+  }
+
+  /**
+   * @return every combination of the values above
+   */
+  public static List<BenchmarkScenario> all() {
+    List<BenchmarkScenario> scenarios = new ArrayList<BenchmarkScenario>();
+    for (int itemCount : ITEM_COUNTS) {
+      for (int columns : COLUMNS) {
+        for (int orientation : ORIENTATIONS) {
+          for (boolean reverseLayout : REVERSE_LAYOUTS) {
+            for (boolean heavyHeaders : HEAVY_HEADERS) {
+              for (boolean layoutAnchors : LAYOUT_ANCHORS) {
+                scenarios.add(new BenchmarkScenario(itemCount, columns, orientation, reverseLayout, heavyHeaders, layoutAnchors));
+              }
+            }
+          }
+        }
+      }
+    }
+    return scenarios;
+  }
+
+  /**
+   * @return true if the scenario matches the given filter values, where -1 (or null) matches anything
+   */
+  public boolean matches(int itemCount, int columns, int orientation, Boolean reverseLayout, Boolean heavyHeaders, Boolean layoutAnchors) {
+    return (itemCount == -1 || itemCount == this.itemCount)
+        && (columns == -1 || columns == this.columns)
+        && (orientation == -1 || orientation == this.orientation)
+        && (reverseLayout == null || reverseLayout == this.reverseLayout)
+        && (heavyHeaders == null || heavyHeaders == this.heavyHeaders)
+        && (layoutAnchors == null || layoutAnchors == this.layoutAnchors);
+  }
+
+  public JSONObject toJson() throws JSONException {
+    JSONObject json = new JSONObject();
+    json.put("name", toString());
+    json.put("itemCount", itemCount);
+    json.put("columns", columns);
+    json.put("orientation", orientation == LinearLayoutManager.VERTICAL ? "vertical" : "horizontal");
+    json.put("reverseLayout", reverseLayout);
+    json.put("heavyHeaders", heavyHeaders);
+    json.put("layoutAnchors", layoutAnchors);
+    return json;
+  }
+
+  @Override
+  public String toString() {
+    return itemCount + "items-" + columns + "col-"
+        + (orientation == LinearLayoutManager.VERTICAL ? "v" : "h")
+        + (reverseLayout ? "-reverse" : "")
+        + (heavyHeaders ? "-heavy" : "-light")
+        + (layoutAnchors ? "-anchors" : "-children");
+  }
+}
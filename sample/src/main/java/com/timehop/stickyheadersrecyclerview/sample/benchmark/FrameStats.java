@@ -0,0 +1,71 @@
+package com.timehop.stickyheadersrecyclerview.sample.benchmark;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Durations of the frames drawn during a benchmark, with their percentiles and the share of frames
+ * that missed their deadline. Frames are added from the thread frame metrics are reported on.
+ */
+public class FrameStats {
+
+  public static final long FRAME_DEADLINE_NANOS = 16666667L;
+
+  private long[] durations = new long[256];
+  private int count;
+
+  public synchronized void addFrame(long durationNanos) {
+    if (count == durations.length) {
+      durations = Arrays.copyOf(durations, count * 2);
+    }
+    durations[count++] = durationNanos;
+  }
+
+  public synchronized int getFrameCount() {
+    return count;
+  }
+
+  /**
+   * @param percentile from 0 to 100
+   * @return duration of the frame at the percentile, in nanoseconds
+   */
+  public synchronized long getPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long[] sorted = Arrays.copyOf(durations, count);
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+    return sorted[Math.max(0, Math.min(count - 1, index))];
+  }
+
+  /**
+   * @return share of the frames longer than {@link #FRAME_DEADLINE_NANOS}, from 0 to 100
+   */
+  public synchronized double getJankPercent() {
+    if (count == 0) {
+      return 0;
+    }
+    int janky = 0;
+    for (int i = 0; i < count; i++) {
+      if (durations[i] > FRAME_DEADLINE_NANOS) {
+        janky++;
+      }
+    }
+    return 100.0 * janky / count;
+  }
+
+  public synchronized JSONObject toJson() throws JSONException {
+    JSONObject json = new JSONObject();
+    json.put("frames", count);
+    json.put("jankPercent", getJankPercent());
+    json.put("p50Ms", getPercentile(50) / 1e6);
+    json.put("p90Ms", getPercentile(90) / 1e6);
+    json.put("p95Ms", getPercentile(95) / 1e6);
+    json.put("p99Ms", getPercentile(99) / 1e6);
+    json.put("maxMs", getPercentile(100) / 1e6);
+    return json;
+  }
+}